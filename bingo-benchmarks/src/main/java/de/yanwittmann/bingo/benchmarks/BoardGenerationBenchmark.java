@@ -0,0 +1,48 @@
+package de.yanwittmann.bingo.benchmarks;
+
+import de.yanwittmann.bingo.BingoBoard;
+import de.yanwittmann.bingo.generator.BingoGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generating complete boards, including the layout. Every invocation generates a different board from the same seed,
+ * so that the benchmark does not depend on one lucky or unlucky board.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = BenchmarkRunner.LOGGING_ARGUMENT)
+public class BoardGenerationBenchmark {
+
+    @Param({Configurations.OUTER_WILDS, Configurations.TEST_OUTER_WILDS})
+    public String configuration;
+
+    @Param({"5", "10", "25"})
+    public int size;
+
+    @Param({"Easy", "Normal", "Hard"})
+    public String difficulty;
+
+    private BingoGenerator generator;
+    private int index;
+
+    @Setup
+    public void setup() {
+        generator = new BingoGenerator(Configurations.load(configuration));
+        generator.setWidth(size);
+        generator.setHeight(size);
+        generator.setDifficultyLevel(difficulty);
+        index = 0;
+    }
+
+    @Benchmark
+    public BingoBoard generateBingoBoard() {
+        return generator.generateBingoBoard(SEED, index++);
+    }
+
+    private final static long SEED = 42;
+}
@@ -0,0 +1,40 @@
+package de.yanwittmann.bingo.benchmarks;
+
+import de.yanwittmann.bingo.generator.BingoConfiguration;
+import de.yanwittmann.bingo.generator.CompiledBingoConfiguration;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a configuration file, and parsing it and compiling the snapshot that tiles are generated from.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkRunner.LOGGING_ARGUMENT)
+public class ConfigurationBenchmark {
+
+    @Param({Configurations.OUTER_WILDS, Configurations.TEST_OUTER_WILDS})
+    public String configuration;
+
+    private byte[] yaml;
+
+    @Setup
+    public void setup() {
+        yaml = Configurations.read(configuration);
+    }
+
+    @Benchmark
+    public BingoConfiguration parse() {
+        return new BingoConfiguration(new ByteArrayInputStream(yaml));
+    }
+
+    @Benchmark
+    public CompiledBingoConfiguration parseAndCompile() {
+        return new BingoConfiguration(new ByteArrayInputStream(yaml)).getCompiledConfiguration();
+    }
+}
@@ -0,0 +1,57 @@
+package de.yanwittmann.bingo.benchmarks;
+
+import de.yanwittmann.bingo.BingoBoard;
+import de.yanwittmann.bingo.BingoTile;
+import de.yanwittmann.bingo.generator.BingoConfiguration;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads the configurations the benchmarks are run with. They are copied from the test resources of the core module
+ * into the benchmark jar, so the benchmarks can be run from any directory.
+ */
+final class Configurations {
+
+    private Configurations() {
+    }
+
+    static byte[] read(String name) {
+        try (InputStream inputStream = Configurations.class.getResourceAsStream("/bingo/generate/" + name)) {
+            if (inputStream == null) {
+                throw new IllegalArgumentException("Unknown configuration [" + name + "]");
+            }
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            return outputStream.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static BingoConfiguration load(String name) {
+        return new BingoConfiguration(new ByteArrayInputStream(read(name)));
+    }
+
+    static List<BingoTile> getTiles(BingoBoard board) {
+        List<BingoTile> tiles = new ArrayList<>();
+        for (int y = 0; y < board.getHeight(); y++) {
+            for (int x = 0; x < board.getWidth(); x++) {
+                tiles.add(board.get(x, y));
+            }
+        }
+        return tiles;
+    }
+
+    final static String OUTER_WILDS = "outer_wilds.yaml";
+    final static String TEST_OUTER_WILDS = "test_outer_wilds.yaml";
+}
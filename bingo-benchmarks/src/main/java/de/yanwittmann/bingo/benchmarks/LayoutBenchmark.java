@@ -0,0 +1,53 @@
+package de.yanwittmann.bingo.benchmarks;
+
+import de.yanwittmann.bingo.BingoBoard;
+import de.yanwittmann.bingo.BingoTile;
+import de.yanwittmann.bingo.generator.BingoGenerator;
+import de.yanwittmann.bingo.generator.CategoryRelations;
+import de.yanwittmann.bingo.generator.CompiledBingoConfiguration;
+import de.yanwittmann.bingo.generator.Deadline;
+import de.yanwittmann.bingo.interfaces.RandomSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Placing the tiles of a generated board with {@link BingoBoard#populate(List, CategoryRelations, RandomSource, long)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkRunner.LOGGING_ARGUMENT)
+public class LayoutBenchmark {
+
+    @Param({"5", "10", "25"})
+    public int size;
+
+    private List<BingoTile> tiles;
+    private CategoryRelations categoryRelations;
+    private RandomSource random;
+
+    @Setup
+    public void setup() {
+        CompiledBingoConfiguration compiledConfiguration = Configurations.load(Configurations.OUTER_WILDS).getCompiledConfiguration();
+        BingoGenerator generator = new BingoGenerator(compiledConfiguration);
+        generator.setWidth(size);
+        generator.setHeight(size);
+        generator.setDifficultyLevel("Normal");
+        tiles = Configurations.getTiles(generator.generateBingoBoard(SEED, 0));
+        categoryRelations = compiledConfiguration.getCategoryRelations();
+        random = RandomSource.create(SEED);
+    }
+
+    @Benchmark
+    public BingoBoard populate() {
+        BingoBoard board = new BingoBoard(size, size);
+        board.populate(tiles, categoryRelations, random, Deadline.NONE);
+        return board;
+    }
+
+    private final static long SEED = 42;
+}
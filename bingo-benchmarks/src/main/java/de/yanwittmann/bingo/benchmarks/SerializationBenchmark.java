@@ -0,0 +1,53 @@
+package de.yanwittmann.bingo.benchmarks;
+
+import de.yanwittmann.bingo.BingoBoard;
+import de.yanwittmann.bingo.generator.BingoGenerator;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing boards to JSON and reading them back, the way boards are stored and uploaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkRunner.LOGGING_ARGUMENT)
+public class SerializationBenchmark {
+
+    @Param({"5", "10", "25"})
+    public int size;
+
+    private BingoBoard board;
+    private String json;
+
+    @Setup
+    public void setup() {
+        BingoGenerator generator = new BingoGenerator(Configurations.load(Configurations.OUTER_WILDS));
+        generator.setWidth(size);
+        generator.setHeight(size);
+        generator.setDifficultyLevel("Normal");
+        board = generator.generateBingoBoard(SEED, 0);
+        json = board.toJson().toString();
+    }
+
+    @Benchmark
+    public String toJson() {
+        return board.toJson().toString();
+    }
+
+    @Benchmark
+    public BingoBoard fromJson() {
+        return new BingoBoard(new JSONObject(json));
+    }
+
+    @Benchmark
+    public BingoBoard roundTrip() {
+        return new BingoBoard(new JSONObject(board.toJson().toString()));
+    }
+
+    private final static long SEED = 42;
+}
@@ -0,0 +1,51 @@
+package de.yanwittmann.bingo.benchmarks;
+
+import de.yanwittmann.bingo.BingoTile;
+import de.yanwittmann.bingo.generator.CompiledBingoConfiguration;
+import de.yanwittmann.bingo.generator.GenerationContext;
+import de.yanwittmann.bingo.interfaces.RandomSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generating a single tile for a 5x5 board that already contains 24 tiles, so that the category constraints and the
+ * duplicate checks are active like they are for the last tiles of a board.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkRunner.LOGGING_ARGUMENT)
+public class TileGenerationBenchmark {
+
+    @Param({Configurations.OUTER_WILDS, Configurations.TEST_OUTER_WILDS})
+    public String configuration;
+
+    @Param({"Easy", "Normal", "Hard"})
+    public String difficulty;
+
+    private CompiledBingoConfiguration compiledConfiguration;
+    private GenerationContext context;
+    private double difficultyScore;
+    private RandomSource random;
+
+    @Setup
+    public void setup() {
+        compiledConfiguration = Configurations.load(configuration).getCompiledConfiguration();
+        difficultyScore = compiledConfiguration.getDifficulty(difficulty).getScore();
+        random = RandomSource.create(SEED);
+        context = new GenerationContext(compiledConfiguration.getCategories(), 25);
+        for (int i = 0; i < 24; i++) {
+            context.add(compiledConfiguration.generateTile(context, difficultyScore, random));
+        }
+    }
+
+    @Benchmark
+    public BingoTile generateTile() {
+        return compiledConfiguration.generateTile(context, difficultyScore, random);
+    }
+
+    private final static long SEED = 42;
+}
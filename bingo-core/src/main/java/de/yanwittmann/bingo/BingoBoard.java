@@ -2,7 +2,16 @@ package de.yanwittmann.bingo;
 
 import de.yanwittmann.bingo.generator.BingoBoardMetadata;
 import de.yanwittmann.bingo.generator.Category;
+import de.yanwittmann.bingo.generator.CategoryRegistry;
+import de.yanwittmann.bingo.generator.CategoryRelations;
+import de.yanwittmann.bingo.generator.Deadline;
+import de.yanwittmann.bingo.generator.GenerationEvents;
+import de.yanwittmann.bingo.generator.GenerationListener;
+import de.yanwittmann.bingo.generator.GenerationPhase;
+import de.yanwittmann.bingo.generator.LayoutMode;
+import de.yanwittmann.bingo.generator.StopReason;
 import de.yanwittmann.bingo.interfaces.Jsonable;
+import de.yanwittmann.bingo.interfaces.RandomSource;
 import org.apache.commons.io.FileUtils;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -13,16 +22,24 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class BingoBoard implements Jsonable {
 
-    private final Logger LOG = LoggerFactory.getLogger(getClass());
+    private final static Logger LOG = LoggerFactory.getLogger(BingoBoard.class);
 
     private final BingoTile[][] board;
     private BingoBoardMetadata boardMetadata;
     private Map<Category, Integer> categoryCount;
     private double difficulty = -1;
+    private LayoutMode layoutMode = LayoutMode.SHUFFLE;
+    private int maxLayoutIterations = 20000;
+    private ForkJoinPool layoutPool;
+    private GenerationListener generationListener = GenerationListener.NONE;
+    private int layoutScore;
+    private int layoutIterations;
 
     public BingoBoard(int width, int height) {
         board = new BingoTile[width][height];
@@ -33,6 +50,14 @@ public class BingoBoard implements Jsonable {
     }
 
     public BingoBoard(JSONObject json) {
+        this(json, new CategoryRegistry());
+    }
+
+    /**
+     * @param categoryRegistry The registry to look up the categories of the tiles in, boards loaded with the same
+     *                         registry share their category objects.
+     */
+    public BingoBoard(JSONObject json, CategoryRegistry categoryRegistry) {
         this(json.getInt("width"), json.getInt("height"));
         if (json.has("metadata")) {
             boardMetadata = new BingoBoardMetadata(json.getJSONObject("metadata").toMap());
@@ -41,7 +66,7 @@ public class BingoBoard implements Jsonable {
         for (int y = 0; y < getHeight(); y++) {
             JSONArray row = jsonBoard.getJSONArray(y);
             for (int x = 0; x < getWidth(); x++) {
-                BingoTile tile = new BingoTile(row.getJSONObject(x));
+                BingoTile tile = new BingoTile(row.getJSONObject(x), categoryRegistry);
                 set(x, y, tile);
             }
         }
@@ -49,7 +74,7 @@ public class BingoBoard implements Jsonable {
             JSONObject jsonCategoryCount = json.getJSONObject("categories");
             categoryCount = new HashMap<>();
             for (Map.Entry<String, Object> entry : jsonCategoryCount.toMap().entrySet()) {
-                Category category = new Category(entry.getKey());
+                Category category = categoryRegistry.getOrCreate(entry.getKey());
                 categoryCount.put(category, (Integer) entry.getValue());
             }
         }
@@ -112,165 +137,238 @@ public class BingoBoard implements Jsonable {
         return difficulty;
     }
 
+    public LayoutMode getLayoutMode() {
+        return layoutMode;
+    }
+
+    public void setLayoutMode(LayoutMode layoutMode) {
+        this.layoutMode = layoutMode;
+    }
+
+    public int getMaxLayoutIterations() {
+        return maxLayoutIterations;
+    }
+
+    /**
+     * @param maxLayoutIterations The maximum amount of swaps that are tried in the {@link LayoutMode#SWAP} mode, by
+     *                            every chunk if a {@link #setLayoutPool(ForkJoinPool) layout pool} is used.
+     */
+    public void setMaxLayoutIterations(int maxLayoutIterations) {
+        this.maxLayoutIterations = maxLayoutIterations;
+    }
+
+    public ForkJoinPool getLayoutPool() {
+        return layoutPool;
+    }
+
+    /**
+     * @param layoutPool The pool to search for a layout on in parallel, or <code>null</code> to search on the calling
+     *                   thread. In the {@link LayoutMode#SHUFFLE} mode the shuffles are split between the chunks of the
+     *                   search, in the {@link LayoutMode#SWAP} mode every chunk runs a full search and the best layout
+     *                   is kept.
+     */
+    public void setLayoutPool(ForkJoinPool layoutPool) {
+        this.layoutPool = layoutPool;
+    }
+
+    /**
+     * @return The score of the layout that was found by the last call to populate, higher scores have more synergies
+     * and fewer antisynergies in the rows.
+     */
+    public int getLayoutScore() {
+        return layoutScore;
+    }
+
+    /**
+     * @return The amount of layouts or swaps that the last call to populate tried, summed up over all chunks if a
+     * {@link #setLayoutPool(ForkJoinPool) layout pool} was used.
+     */
+    public int getLayoutIterations() {
+        return layoutIterations;
+    }
+
+    public GenerationListener getGenerationListener() {
+        return generationListener;
+    }
+
+    /**
+     * @param generationListener The listener to notify about better layouts and the time it took to place the tiles,
+     *                           or <code>null</code> to not notify anyone.
+     */
+    public void setGenerationListener(GenerationListener generationListener) {
+        this.generationListener = generationListener == null ? GenerationListener.NONE : generationListener;
+    }
+
     public void populate(List<BingoTile> tiles, List<Category> categories, Random random) {
-        LOG.info("Populating board with [{}] tiles", tiles.size());
-        int bestScore = Integer.MIN_VALUE;
-        BingoTile[][] bestBoard = null;
-        for (int i = 0; i < 1000; i++) {
-            BingoTile[][] populatedBoard = populate(tiles, random);
-            int score = scoreBoard(populatedBoard, categories);
-            if (score > bestScore) {
-                bestScore = score;
-                bestBoard = populatedBoard;
-                LOG.info("New best score [{}]", bestScore);
-            }
-        }
-        // board is final, copy cells individually
-        if (bestBoard != null) {
-            for (int x = 0; x < getWidth(); x++) {
-                if (getHeight() >= 0) System.arraycopy(bestBoard[x], 0, board[x], 0, getHeight());
-            }
-        }
+        populate(tiles, categories, RandomSource.of(random));
+    }
 
-        LOG.info("Board score is [{}]", bestScore);
+    public void populate(List<BingoTile> tiles, List<Category> categories, RandomSource random) {
+        populate(tiles, categories, random, Deadline.NONE);
     }
 
-    private BingoTile[][] populate(List<BingoTile> tiles, Random random) {
-        Collections.shuffle(tiles, random);
-        BingoTile[][] board = new BingoTile[getWidth()][getHeight()];
-        for (int i = 0; i < getWidth(); i++) {
-            for (int j = 0; j < getHeight(); j++) {
-                board[i][j] = tiles.get(i * getHeight() + j);
-            }
+    /**
+     * Places the tiles on the board, trying to find a layout with as many synergies and as few antisynergies in the
+     * rows as possible, see {@link LayoutMode}.<br>
+     * At least one layout is always tried, even if the deadline has already passed.
+     *
+     * @param deadline The {@link System#nanoTime()} after which no more layouts are tried, see {@link Deadline}.
+     * @return {@link StopReason#DEADLINE} if the deadline stopped the search, {@link StopReason#TARGET_REACHED} if
+     * swapping cells did not improve the layout anymore, {@link StopReason#ATTEMPTS_EXHAUSTED} otherwise.
+     */
+    public StopReason populate(List<BingoTile> tiles, List<Category> categories, RandomSource random, long deadline) {
+        return populate(tiles, new CategoryRelations(categories), random, deadline);
+    }
+
+    /**
+     * Same as {@link #populate(List, List, RandomSource, long)}, with relations that have been prepared once, for
+     * example by a {@link de.yanwittmann.bingo.generator.CompiledBingoConfiguration}.
+     */
+    public StopReason populate(List<BingoTile> tiles, CategoryRelations relations, RandomSource random, long deadline) {
+        LOG.info("Populating board with [{}] tiles", tiles.size());
+        Object event = GenerationEvents.get().beginPopulate();
+        long start = System.nanoTime();
+        LayoutScorer scorer = new LayoutScorer(BoardGeometry.of(getWidth(), getHeight()), relations, tiles);
+        LayoutCandidate best;
+        if (layoutPool != null) {
+            best = searchLayoutInParallel(scorer, random, deadline);
+        } else if (layoutMode == LayoutMode.SWAP) {
+            // the same stream as the first chunk of a parallel search, so a pool can only find better layouts
+            best = searchLayout(scorer, random.split(), deadline, 0, 1);
+        } else {
+            best = searchLayout(scorer, random, deadline, 0, 1);
         }
-        return board;
+        scorer.setLayout(best.layout);
+        applyLayout(scorer);
+        layoutScore = best.score;
+        layoutIterations = best.iterations;
+        generationListener.onPhaseCompleted(GenerationPhase.POPULATE, System.nanoTime() - start);
+        GenerationEvents.get().commitPopulate(event, getWidth(), getHeight(), difficulty, GenerationEvents.getTitle(boardMetadata),
+                tiles.size(), best.stopReason, best.score);
+
+        LOG.info("Board score is [{}]", best.score);
+        return best.stopReason;
     }
 
     /**
-     * Calculates the score of the board.<br>
-     * Score is determined by checking if rows contain synergies and antisynergies.<br>
-     * The higher the score, the better the board.
-     *
-     * @param board      The board to score.
-     * @param categories The categories to check the antisynergies and synergies of.
-     * @return The score of the board. The higher, the better.
+     * Splits the search into a fixed amount of chunks that run on the layout pool. Every chunk gets its own random
+     * stream and keeps its own best layout. Shuffles are split between the chunks, so the pool does not try more
+     * layouts than a search on the calling thread and only finishes sooner. A swap search gives up once it stops
+     * improving, so every chunk runs a full search and the pool searches from more starting layouts instead.<br>
+     * The streams are split off in chunk order and the best layouts are compared in chunk order, so the result does
+     * not depend on the amount of threads.
      */
-    private int scoreBoard(BingoTile[][] board, List<Category> categories) {
-        // find vertical rows
-        int score = 0;
-        List<BingoTile> row = new ArrayList<>(getWidth());
-        for (int x = 0; x < getWidth(); x++) {
-            for (int y = 0; y < getHeight(); y++) {
-                row.add(board[x][y]);
-            }
-            score += scoreRow(row, categories);
-            row.clear();
+    private LayoutCandidate searchLayoutInParallel(LayoutScorer scorer, RandomSource random, long deadline) {
+        List<RandomSource> randoms = new ArrayList<>(LAYOUT_CHUNKS);
+        for (int i = 0; i < LAYOUT_CHUNKS; i++) {
+            randoms.add(random.split());
+        }
+        List<LayoutCandidate> candidates = layoutPool.submit(() -> IntStream.range(0, LAYOUT_CHUNKS).parallel()
+                .mapToObj(chunk -> searchLayout(new LayoutScorer(scorer), randoms.get(chunk), deadline, chunk, LAYOUT_CHUNKS))
+                .collect(Collectors.toList())
+        ).join();
+
+        LayoutCandidate best = candidates.get(0);
+        boolean deadlineReached = false, attemptsExhausted = false;
+        int iterations = 0;
+        for (LayoutCandidate candidate : candidates) {
+            iterations += candidate.iterations;
+            // a later chunk has to be strictly better to win, which makes ties deterministic
+            if (candidate.score > best.score) best = candidate;
+            deadlineReached |= candidate.stopReason == StopReason.DEADLINE;
+            attemptsExhausted |= candidate.stopReason == StopReason.ATTEMPTS_EXHAUSTED;
         }
+        StopReason stopReason = deadlineReached ? StopReason.DEADLINE : attemptsExhausted ? StopReason.ATTEMPTS_EXHAUSTED : StopReason.TARGET_REACHED;
+        return new LayoutCandidate(best.layout, best.score, stopReason, iterations);
+    }
 
-        // find horizontal rows
-        for (int y = 0; y < getHeight(); y++) {
-            for (int x = 0; x < getWidth(); x++) {
-                row.add(board[x][y]);
-            }
-            score += scoreRow(row, categories);
-            row.clear();
+    /**
+     * Searches with the share of the shuffles that belongs to the given chunk, a search on the calling thread is the
+     * only chunk. Swap searches always get all iterations.
+     */
+    private LayoutCandidate searchLayout(LayoutScorer scorer, RandomSource random, long deadline, int chunk, int chunks) {
+        if (layoutMode == LayoutMode.SWAP) {
+            int stallLimit = Math.max(200, scorer.getGeometry().getCellCount() * 4);
+            return searchBySwapping(scorer, random, deadline, maxLayoutIterations, stallLimit);
         }
+        return searchByShuffling(scorer, random, deadline, share(LAYOUT_SHUFFLES, chunk, chunks));
+    }
 
-        // find diagonal rows
-        int diagonalRowLength = Math.min(getWidth(), getHeight());
-        if (getWidth() >= getHeight()) {
-            for (int x = 0; x < getWidth() - diagonalRowLength + 1; x++) {
-                for (int y = 0; y < diagonalRowLength; y++) {
-                    row.add(board[x + y][y]);
-                }
-                score += scoreRow(row, categories);
-                row.clear();
+    private static int share(int total, int chunk, int chunks) {
+        return (int) ((chunk + 1L) * total / chunks - (long) chunk * total / chunks);
+    }
 
-                int i = 0;
-                for (int y = getHeight() - 1; y >= 0; y--) {
-                    row.add(board[x + i][y]);
-                    i++;
-                }
-                score += scoreRow(row, categories);
-                row.clear();
+    private LayoutCandidate searchByShuffling(LayoutScorer scorer, RandomSource random, long deadline, int shuffles) {
+        StopReason stopReason = StopReason.ATTEMPTS_EXHAUSTED;
+        int bestScore = Integer.MIN_VALUE;
+        int[] bestLayout = scorer.copyLayout();
+        int i = 0;
+        for (; i < shuffles; i++) {
+            if (i > 0 && Deadline.isReached(deadline)) {
+                stopReason = StopReason.DEADLINE;
+                break;
             }
-        } else {
-            for (int y = 0; y < getHeight() - diagonalRowLength + 1; y++) {
-                for (int x = 0; x < diagonalRowLength; x++) {
-                    row.add(board[x][y + x]);
-                }
-                score += scoreRow(row, categories);
-                row.clear();
-
-                int i = 0;
-                for (int x = getWidth() - 1; x >= 0; x--) {
-                    row.add(board[x][y + i]);
-                    i++;
-                }
-                score += scoreRow(row, categories);
-                row.clear();
+            scorer.shuffle(random);
+            int score = scorer.score();
+            if (score > bestScore) {
+                bestScore = score;
+                bestLayout = scorer.copyLayout();
+                generationListener.onLayoutImprovement(bestScore);
             }
         }
+        return new LayoutCandidate(bestLayout, bestScore, stopReason, i);
+    }
 
-        // give points for having a larger difficulty on outer layers compared to inner layers (circles)
-        // example, a board like this, the numbers being the difficulties:
-        //  1 2 3 4
-        //  5 6 7 8
-        //  9 10 11 12
-        //  13 14 15 16
-        // would have two layers, one the outer ring and one the inner ring.
-        // the outer ring would have a score of (1+2+3+4+5+8+9+19+13+14+15+16 = 109), the inner ring would have a score of (6+7+10+11 = 34).
-        int layers = (int) Math.ceil(Math.max(getWidth(), getHeight()) / 2.0);
-        double[] totalDifficultyPerLayer = new double[layers];
-        int[] elementsPerLayer = new int[layers];
-        double centerX = (getWidth() - 1) / 2.0;
-        double centerY = (getHeight() - 1) / 2.0;
-        for (int x = 0; x < getWidth(); x++) {
-            for (int y = 0; y < getHeight(); y++) {
-                double distance = Math.max(Math.abs(x - centerX), Math.abs(y - centerY));
-                int layer = (int) Math.floor(distance);
-                totalDifficultyPerLayer[layer] += board[x][y].getDifficulty();
-                elementsPerLayer[layer]++;
+    /**
+     * Local search over the layout: two random cells are swapped and only the lines and layers that contain these cells
+     * are scored again. Swaps that make the board worse are reverted. The search stops once no swap improved the
+     * score for a while, or when the iterations or the time run out.
+     */
+    private LayoutCandidate searchBySwapping(LayoutScorer scorer, RandomSource random, long deadline, int iterations, int stallLimit) {
+        int cellCount = scorer.getGeometry().getCellCount();
+        scorer.shuffle(random);
+        SwapScorer swapScorer = new SwapScorer(scorer);
+
+        StopReason stopReason = StopReason.ATTEMPTS_EXHAUSTED;
+        int stalled = 0;
+        int swaps = 0;
+        for (; swaps < iterations && cellCount > 1; swaps++) {
+            if (stalled >= stallLimit) {
+                stopReason = StopReason.TARGET_REACHED;
+                break;
+            } else if (Deadline.isReached(deadline)) {
+                stopReason = StopReason.DEADLINE;
+                break;
             }
-        }
-        for (int i = 0; i < layers; i++) {
-            totalDifficultyPerLayer[i] /= elementsPerLayer[i];
-        }
-        for (int i = 0; i < layers - 1; i++) {
-            if (totalDifficultyPerLayer[i] <= totalDifficultyPerLayer[i + 1]) {
-                score += 5;
+
+            int a = random.nextInt(cellCount);
+            int b = random.nextInt(cellCount - 1);
+            if (b >= a) b++;
+            int delta = swapScorer.swap(a, b);
+
+            if (delta >= 0) {
+                swapScorer.accept();
+                if (delta > 0) {
+                    stalled = 0;
+                    generationListener.onLayoutImprovement(swapScorer.getScore());
+                } else {
+                    stalled++;
+                }
             } else {
-                score -= 2;
+                swapScorer.revert();
+                stalled++;
             }
         }
 
-        return score;
+        return new LayoutCandidate(scorer.copyLayout(), swapScorer.getScore(), stopReason, swaps);
     }
 
-    private int scoreRow(List<BingoTile> row, List<Category> categories) {
-        int score = 0;
-        for (Category category : categories) {
-            BingoTile tile = rowContainsCategory(row, category, null);
-            if (tile != null) {
-                // check for antisynergies
-                for (Category antisynergy : category.getAntisynergy()) {
-                    if (rowContainsCategory(row, antisynergy, tile) != null) {
-                        score -= 10;
-                    }
-                }
-                // check for synergies
-                for (Category synergy : category.getSynergies()) {
-                    if (rowContainsCategory(row, synergy, tile) != null) {
-                        score += 4;
-                    }
-                }
+    private void applyLayout(LayoutScorer scorer) {
+        for (int x = 0; x < getWidth(); x++) {
+            for (int y = 0; y < getHeight(); y++) {
+                board[x][y] = scorer.getTile(x * getHeight() + y);
             }
         }
-        return score;
-    }
-
-    private BingoTile rowContainsCategory(List<BingoTile> row, Category category, BingoTile exclude) {
-        return row.stream().filter(t -> t != exclude).filter(tile -> tile.getCategories().contains(category)).findFirst().orElse(null);
     }
 
     public String toString() {
@@ -308,4 +406,21 @@ public class BingoBoard implements Jsonable {
         }
         return rows;
     }
+
+    private static class LayoutCandidate {
+        private final int[] layout;
+        private final int score;
+        private final StopReason stopReason;
+        private final int iterations;
+
+        private LayoutCandidate(int[] layout, int score, StopReason stopReason, int iterations) {
+            this.layout = layout;
+            this.score = score;
+            this.stopReason = stopReason;
+            this.iterations = iterations;
+        }
+    }
+
+    private final static int LAYOUT_SHUFFLES = 1000;
+    private final static int LAYOUT_CHUNKS = 16;
 }
@@ -1,11 +1,11 @@
 package de.yanwittmann.bingo;
 
 import de.yanwittmann.bingo.generator.Category;
+import de.yanwittmann.bingo.generator.CategoryMask;
+import de.yanwittmann.bingo.generator.CategoryRegistry;
 import de.yanwittmann.bingo.interfaces.Jsonable;
 import org.json.JSONArray;
 import org.json.JSONObject;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -13,26 +13,35 @@ import java.util.stream.Collectors;
 
 public class BingoTile implements Jsonable {
 
-    private final Logger LOG = LoggerFactory.getLogger(getClass());
-
     private final String text;
+    private String textKey;
+    private final long textKeyHash;
     private final String tooltip;
     private final double difficulty;
     private final List<Category> categories = new ArrayList<>();
+    private final CategoryMask categoryMask = new CategoryMask();
 
     public BingoTile(String text, String tooltip, double difficulty) {
         this.text = text;
+        this.textKeyHash = hashText(text);
         this.tooltip = tooltip;
         this.difficulty = difficulty;
     }
 
     public BingoTile(JSONObject jsonObject) {
+        this(jsonObject, new CategoryRegistry());
+    }
+
+    public BingoTile(JSONObject jsonObject, CategoryRegistry categoryRegistry) {
         text = jsonObject.getString("text");
+        textKeyHash = hashText(text);
         tooltip = jsonObject.optString("tooltip", null);
         difficulty = jsonObject.getDouble("difficulty");
         JSONArray categories = jsonObject.optJSONArray("categories");
         if (categories != null) {
-            this.categories.addAll(categories.toList().stream().map(s -> new Category(String.valueOf(s))).collect(Collectors.toList()));
+            for (int i = 0; i < categories.length(); i++) {
+                addCategory(categoryRegistry.getOrCreate(String.valueOf(categories.get(i))));
+            }
         }
     }
 
@@ -50,20 +59,104 @@ public class BingoTile implements Jsonable {
     }
 
     public void addCategory(Category category) {
-        if (category == null || categories.contains(category)) return;
+        if (category == null || hasCategory(category)) return;
         categories.add(category);
+        categoryMask.add(category);
+    }
+
+    public boolean hasCategory(Category category) {
+        if (category.getId() >= 0) return categoryMask.contains(category);
+        return categories.contains(category);
     }
 
     public List<Category> getCategories() {
         return categories;
     }
 
+    public CategoryMask getCategoryMask() {
+        return categoryMask;
+    }
+
+    /**
+     * @return The text without numbers and in lower case, tiles with the same key are considered duplicates. The key
+     * is only created once it is needed, duplicates are usually found by the {@link #getTextKeyHash() hash} first.
+     */
+    public String getTextKey() {
+        if (textKey == null) textKey = normalizeText(text);
+        return textKey;
+    }
+
+    public long getTextKeyHash() {
+        return textKeyHash;
+    }
+
     public boolean isTextEqual(String text) {
-        if (text == null && this.text == null) return true;
-        if (text == null || this.text == null) return false;
-        String compare = text.replaceAll("-?\\d", "");
-        String self = this.text.replaceAll("-?\\d", "");
-        return compare.equalsIgnoreCase(self);
+        return isTextEqual((CharSequence) text);
+    }
+
+    /**
+     * Compares the text with the {@link #getTextKey() key} of this tile character by character, without creating the
+     * key of the text first.
+     */
+    public boolean isTextEqual(CharSequence text) {
+        String textKey = getTextKey();
+        if (text == null || textKey == null) return text == null && textKey == null;
+        int keyIndex = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '-' && i + 1 < length && isDigit(text.charAt(i + 1))) {
+                i++;
+            } else if (!isDigit(c)) {
+                if (keyIndex == textKey.length() || textKey.charAt(keyIndex++) != foldCase(c)) return false;
+            }
+        }
+        return keyIndex == textKey.length();
+    }
+
+    /**
+     * Removes all digits including a minus sign in front of them and folds the case of the remaining characters the
+     * same way {@link String#equalsIgnoreCase(String)} compares them.
+     */
+    public static String normalizeText(String text) {
+        if (text == null) return null;
+        StringBuilder key = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '-' && i + 1 < text.length() && isDigit(text.charAt(i + 1))) {
+                i++;
+            } else if (!isDigit(c)) {
+                key.append(foldCase(c));
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * @return A hash of the {@link #normalizeText(String) key} of the text, calculated without creating the key.
+     * Tiles with the same key have the same hash.
+     */
+    public static long hashText(CharSequence text) {
+        if (text == null) return 0;
+        long hash = TEXT_HASH_OFFSET;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '-' && i + 1 < length && isDigit(text.charAt(i + 1))) {
+                i++;
+            } else if (!isDigit(c)) {
+                hash = (hash ^ foldCase(c)) * TEXT_HASH_PRIME;
+            }
+        }
+        return hash;
+    }
+
+    private static char foldCase(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
 
     @Override
@@ -80,4 +173,7 @@ public class BingoTile implements Jsonable {
     public String toString() {
         return text;
     }
+
+    private final static long TEXT_HASH_OFFSET = 0xcbf29ce484222325L;
+    private final static long TEXT_HASH_PRIME = 0x100000001b3L;
 }
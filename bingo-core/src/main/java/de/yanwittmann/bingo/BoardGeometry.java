@@ -0,0 +1,157 @@
+package de.yanwittmann.bingo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The rows and difficulty layers of a board with a certain size, stored as cell indices.<br>
+ * A cell at <code>x, y</code> has the index <code>x * height + y</code>. Geometries are immutable and cached per size,
+ * the arrays must not be modified.
+ */
+final class BoardGeometry {
+
+    private final static Map<Long, BoardGeometry> GEOMETRIES = new ConcurrentHashMap<>();
+
+    private final int width;
+    private final int height;
+    private final int[][] lines;
+    private final int[][] linesOfCells;
+    private final int[] layerOfCells;
+    private final int[][] layers;
+
+    private BoardGeometry(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.lines = createLines();
+        this.linesOfCells = createLinesOfCells();
+        this.layerOfCells = createLayerOfCells();
+        this.layers = createLayers();
+    }
+
+    static BoardGeometry of(int width, int height) {
+        return GEOMETRIES.computeIfAbsent(((long) width << 32) | (height & 0xFFFFFFFFL), key -> new BoardGeometry(width, height));
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    int getCellCount() {
+        return width * height;
+    }
+
+    /**
+     * @return The cells of all vertical, horizontal and diagonal rows.
+     */
+    int[][] getLines() {
+        return lines;
+    }
+
+    /**
+     * @return The indices of the lines every cell is part of.
+     */
+    int[][] getLinesOfCells() {
+        return linesOfCells;
+    }
+
+    int[] getLayerOfCells() {
+        return layerOfCells;
+    }
+
+    /**
+     * @return The cells of every layer, starting with the innermost layer.
+     */
+    int[][] getLayers() {
+        return layers;
+    }
+
+    private int[][] createLines() {
+        List<int[]> lines = new ArrayList<>();
+        // vertical rows
+        for (int x = 0; x < width; x++) {
+            int[] line = new int[height];
+            for (int y = 0; y < height; y++) line[y] = x * height + y;
+            lines.add(line);
+        }
+        // horizontal rows
+        for (int y = 0; y < height; y++) {
+            int[] line = new int[width];
+            for (int x = 0; x < width; x++) line[x] = x * height + y;
+            lines.add(line);
+        }
+        // diagonal rows
+        int diagonalRowLength = Math.min(width, height);
+        if (width >= height) {
+            for (int x = 0; x < width - diagonalRowLength + 1; x++) {
+                int[] line = new int[diagonalRowLength];
+                for (int y = 0; y < diagonalRowLength; y++) line[y] = (x + y) * height + y;
+                lines.add(line);
+                line = new int[height];
+                int i = 0;
+                for (int y = height - 1; y >= 0; y--, i++) line[i] = (x + i) * height + y;
+                lines.add(line);
+            }
+        } else {
+            for (int y = 0; y < height - diagonalRowLength + 1; y++) {
+                int[] line = new int[diagonalRowLength];
+                for (int x = 0; x < diagonalRowLength; x++) line[x] = x * height + y + x;
+                lines.add(line);
+                line = new int[width];
+                int i = 0;
+                for (int x = width - 1; x >= 0; x--, i++) line[i] = x * height + y + i;
+                lines.add(line);
+            }
+        }
+        return lines.toArray(new int[0][]);
+    }
+
+    private int[][] createLinesOfCells() {
+        int[] lineCounts = new int[getCellCount()];
+        for (int[] line : lines) {
+            for (int cell : line) lineCounts[cell]++;
+        }
+        int[][] linesOfCells = new int[getCellCount()][];
+        for (int cell = 0; cell < linesOfCells.length; cell++) {
+            linesOfCells[cell] = new int[lineCounts[cell]];
+            lineCounts[cell] = 0;
+        }
+        for (int line = 0; line < lines.length; line++) {
+            for (int cell : lines[line]) linesOfCells[cell][lineCounts[cell]++] = line;
+        }
+        return linesOfCells;
+    }
+
+    private int[] createLayerOfCells() {
+        int[] layerOfCells = new int[getCellCount()];
+        double centerX = (width - 1) / 2.0;
+        double centerY = (height - 1) / 2.0;
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                double distance = Math.max(Math.abs(x - centerX), Math.abs(y - centerY));
+                layerOfCells[x * height + y] = (int) Math.floor(distance);
+            }
+        }
+        return layerOfCells;
+    }
+
+    private int[][] createLayers() {
+        int[] layerSizes = new int[(int) Math.ceil(Math.max(width, height) / 2.0)];
+        for (int layer : layerOfCells) layerSizes[layer]++;
+        int[][] layers = new int[layerSizes.length][];
+        for (int i = 0; i < layers.length; i++) {
+            layers[i] = new int[layerSizes[i]];
+            layerSizes[i] = 0;
+        }
+        for (int cell = 0; cell < layerOfCells.length; cell++) {
+            int layer = layerOfCells[cell];
+            layers[layer][layerSizes[layer]++] = cell;
+        }
+        return layers;
+    }
+}
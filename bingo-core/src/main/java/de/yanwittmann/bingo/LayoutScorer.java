@@ -0,0 +1,189 @@
+package de.yanwittmann.bingo;
+
+import de.yanwittmann.bingo.generator.Category;
+import de.yanwittmann.bingo.generator.CategoryRelations;
+import de.yanwittmann.bingo.interfaces.RandomSource;
+
+import java.util.List;
+
+/**
+ * Scores layouts of a fixed set of tiles on a board.<br>
+ * The categories of the tiles are converted into bit masks and the difficulties into an array once, a layout is an
+ * array of tile indices per cell. Scoring a layout therefore does not allocate and only works on primitive arrays.<br>
+ * The difficulties are stored as fixed point numbers, so that the sum of a layer does not depend on the order of its
+ * cells and a layer that is updated after a swap compares exactly like a layer that is summed up again.
+ */
+final class LayoutScorer {
+
+    private final BoardGeometry geometry;
+    private final CategoryRelations relations;
+    private final List<BingoTile> tiles;
+    private final int words;
+    private final long[] tileMasks;
+    private final long[] tileDifficulties;
+    private final int[] layout;
+
+    private final long[] once;
+    private final long[] twice;
+    private final int[] firstTiles;
+
+    LayoutScorer(BoardGeometry geometry, CategoryRelations relations, List<BingoTile> tiles) {
+        this.geometry = geometry;
+        this.relations = relations;
+        this.tiles = tiles;
+        this.words = relations.getWords();
+
+        this.tileMasks = new long[tiles.size() * words];
+        this.tileDifficulties = new long[tiles.size()];
+        this.layout = new int[tiles.size()];
+        for (int i = 0; i < tiles.size(); i++) {
+            BingoTile tile = tiles.get(i);
+            for (Category category : tile.getCategories()) {
+                int id = relations.getId(category);
+                if (id >= 0) tileMasks[i * words + (id >>> 6)] |= 1L << id;
+            }
+            tileDifficulties[i] = Math.round(tile.getDifficulty() * DIFFICULTY_SCALE);
+            layout[i] = i;
+        }
+
+        this.once = new long[words];
+        this.twice = new long[words];
+        this.firstTiles = new int[relations.size()];
+    }
+
+    /**
+     * Creates a scorer for the same tiles that has its own layout and scratch space, so that it can be used on another
+     * thread.
+     */
+    LayoutScorer(LayoutScorer source) {
+        this.geometry = source.geometry;
+        this.relations = source.relations;
+        this.tiles = source.tiles;
+        this.words = source.words;
+        this.tileMasks = source.tileMasks;
+        this.tileDifficulties = source.tileDifficulties;
+        this.layout = source.layout.clone();
+        this.once = new long[words];
+        this.twice = new long[words];
+        this.firstTiles = new int[source.firstTiles.length];
+    }
+
+    BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Shuffles the layout the same way {@link java.util.Collections#shuffle} shuffles the tile list.
+     */
+    void shuffle(RandomSource random) {
+        for (int i = layout.length; i > 1; i--) {
+            swap(i - 1, random.nextInt(i));
+        }
+    }
+
+    void swap(int cellA, int cellB) {
+        int tile = layout[cellA];
+        layout[cellA] = layout[cellB];
+        layout[cellB] = tile;
+    }
+
+    int[] copyLayout() {
+        return layout.clone();
+    }
+
+    void setLayout(int[] layout) {
+        System.arraycopy(layout, 0, this.layout, 0, layout.length);
+    }
+
+    BingoTile getTile(int cell) {
+        return tiles.get(layout[cell]);
+    }
+
+    int score() {
+        int score = 0;
+        for (int[] line : geometry.getLines()) {
+            score += scoreLine(line);
+        }
+        return score + scoreLayers(layerDifficulties());
+    }
+
+    /**
+     * Scores synergies and antisynergies in a row: every category that occurs in the row gets the points of its
+     * relations to the categories that occur in another tile of the row than the first tile with the category.<br>
+     * Only the relations that are present in the row are visited, using the relation masks of the matrix.
+     */
+    int scoreLine(int[] line) {
+        for (int w = 0; w < words; w++) {
+            once[w] = 0;
+            twice[w] = 0;
+        }
+        for (int cell : line) {
+            int tile = layout[cell];
+            int base = tile * words;
+            for (int w = 0; w < words; w++) {
+                long mask = tileMasks[base + w];
+                long newBits = mask & ~once[w];
+                twice[w] |= mask & once[w];
+                once[w] |= mask;
+                while (newBits != 0) {
+                    firstTiles[(w << 6) + Long.numberOfTrailingZeros(newBits)] = tile;
+                    newBits &= newBits - 1;
+                }
+            }
+        }
+
+        int score = 0;
+        for (int w = 0; w < words; w++) {
+            long present = once[w];
+            while (present != 0) {
+                int category = (w << 6) + Long.numberOfTrailingZeros(present);
+                present &= present - 1;
+                int base = firstTiles[category] * words;
+                for (int w2 = 0; w2 < words; w2++) {
+                    // a related category counts if it occurs twice, or once but not in the first tile with this category
+                    long related = relations.getRelationMask(category, w2) & (twice[w2] | (once[w2] & ~tileMasks[base + w2]));
+                    while (related != 0) {
+                        score += relations.getWeight(category, (w2 << 6) + Long.numberOfTrailingZeros(related));
+                        related &= related - 1;
+                    }
+                }
+            }
+        }
+        return score;
+    }
+
+    long layerDifficulty(int layer) {
+        long sum = 0;
+        for (int cell : geometry.getLayers()[layer]) {
+            sum += tileDifficulties[layout[cell]];
+        }
+        return sum;
+    }
+
+    long[] layerDifficulties() {
+        long[] layerDifficulties = new long[geometry.getLayers().length];
+        for (int i = 0; i < layerDifficulties.length; i++) {
+            layerDifficulties[i] = layerDifficulty(i);
+        }
+        return layerDifficulties;
+    }
+
+    /**
+     * Gives points for having a larger average difficulty on outer layers compared to inner layers.
+     */
+    int scoreLayers(long[] layerDifficulties) {
+        int[][] layers = geometry.getLayers();
+        int score = 0;
+        for (int i = 0; i < layers.length - 1; i++) {
+            // compares the averages of the layers without dividing
+            if (layerDifficulties[i] * layers[i + 1].length <= layerDifficulties[i + 1] * layers[i].length) {
+                score += 5;
+            } else {
+                score -= 2;
+            }
+        }
+        return score;
+    }
+
+    private final static double DIFFICULTY_SCALE = 1_000_000;
+}
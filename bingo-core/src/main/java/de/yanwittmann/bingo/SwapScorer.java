@@ -0,0 +1,113 @@
+package de.yanwittmann.bingo;
+
+/**
+ * Keeps the score of the layout of a {@link LayoutScorer} up to date while two cells at a time are swapped.<br>
+ * Only the lines and the layers that contain the swapped cells are scored again. Every {@link #swap(int, int) swap}
+ * has to be {@link #accept() accepted} or {@link #revert() reverted} before the next one.
+ */
+final class SwapScorer {
+
+    private final LayoutScorer scorer;
+    private final int[][] lines;
+    private final int[][] linesOfCells;
+    private final int[] layerOfCells;
+    private final int[] lineScores;
+    private final long[] layerDifficulties;
+    private int layerScore;
+    private int score;
+
+    private final int[] changedLines;
+    private final int[] changedLineScores;
+    private final int[] lineStamps;
+    private int stamp;
+    private int changedLineCount;
+    private int cellA, cellB;
+    private int layerA, layerB;
+    private long previousDifficultyA, previousDifficultyB;
+    private int newLayerScore;
+    private int delta;
+
+    SwapScorer(LayoutScorer scorer) {
+        BoardGeometry geometry = scorer.getGeometry();
+        this.scorer = scorer;
+        this.lines = geometry.getLines();
+        this.linesOfCells = geometry.getLinesOfCells();
+        this.layerOfCells = geometry.getLayerOfCells();
+
+        this.lineScores = new int[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            lineScores[i] = scorer.scoreLine(lines[i]);
+            score += lineScores[i];
+        }
+        this.layerDifficulties = scorer.layerDifficulties();
+        this.layerScore = scorer.scoreLayers(layerDifficulties);
+        score += layerScore;
+
+        this.changedLines = new int[lines.length];
+        this.changedLineScores = new int[lines.length];
+        this.lineStamps = new int[lines.length];
+    }
+
+    /**
+     * @return The score of the layout, not including a swap that has not been accepted yet.
+     */
+    int getScore() {
+        return score;
+    }
+
+    /**
+     * Swaps the two cells in the layout of the scorer.
+     *
+     * @return How much the score changes if the swap is accepted.
+     */
+    int swap(int cellA, int cellB) {
+        this.cellA = cellA;
+        this.cellB = cellB;
+        scorer.swap(cellA, cellB);
+
+        // score the lines that contain either cell once
+        stamp++;
+        changedLineCount = 0;
+        delta = 0;
+        scoreChangedLines(linesOfCells[cellA]);
+        scoreChangedLines(linesOfCells[cellB]);
+
+        layerA = layerOfCells[cellA];
+        layerB = layerOfCells[cellB];
+        previousDifficultyA = layerDifficulties[layerA];
+        previousDifficultyB = layerDifficulties[layerB];
+        newLayerScore = layerScore;
+        if (layerA != layerB) {
+            layerDifficulties[layerA] = scorer.layerDifficulty(layerA);
+            layerDifficulties[layerB] = scorer.layerDifficulty(layerB);
+            newLayerScore = scorer.scoreLayers(layerDifficulties);
+            delta += newLayerScore - layerScore;
+        }
+        return delta;
+    }
+
+    private void scoreChangedLines(int[] cellLines) {
+        for (int line : cellLines) {
+            if (lineStamps[line] == stamp) continue;
+            lineStamps[line] = stamp;
+            int lineScore = scorer.scoreLine(lines[line]);
+            delta += lineScore - lineScores[line];
+            changedLines[changedLineCount] = line;
+            changedLineScores[changedLineCount++] = lineScore;
+        }
+    }
+
+    void accept() {
+        for (int i = 0; i < changedLineCount; i++) {
+            lineScores[changedLines[i]] = changedLineScores[i];
+        }
+        layerScore = newLayerScore;
+        score += delta;
+    }
+
+    void revert() {
+        scorer.swap(cellA, cellB);
+        layerDifficulties[layerA] = previousDifficultyA;
+        layerDifficulties[layerB] = previousDifficultyB;
+    }
+}
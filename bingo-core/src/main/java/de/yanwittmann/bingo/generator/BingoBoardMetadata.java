@@ -23,6 +23,14 @@ public class BingoBoardMetadata implements Jsonable {
         authors = (List<String>) optionMap.getOrDefault(BingoConfiguration.KEY_GENERAL_AUTHORS, new ArrayList<>());
     }
 
+    BingoBoardMetadata(String title, String game, String description, String version, List<String> authors) {
+        this.title = title;
+        this.game = game;
+        this.description = description;
+        this.version = version;
+        this.authors = authors;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -1,6 +1,7 @@
 package de.yanwittmann.bingo.generator;
 
 import de.yanwittmann.bingo.BingoTile;
+import de.yanwittmann.bingo.interfaces.RandomSource;
 import de.yanwittmann.bingo.interfaces.Weightable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,31 +10,66 @@ import org.yaml.snakeyaml.Yaml;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.InputStream;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class BingoConfiguration {
 
-    private final Logger LOG = LoggerFactory.getLogger(getClass());
+    private final static Logger LOG = LoggerFactory.getLogger(BingoConfiguration.class);
 
     private BingoBoardMetadata boardMetadata;
     private final List<TileGenerator> tileGenerators = new ArrayList<>();
-    private final Map<Difficulty, List<TileGenerator>> tileGeneratorsByDifficulty = new HashMap<>();
     private final Map<String, List<TextSnippet>> textSnippets = new HashMap<>();
     private final Map<String, ValueProvider> numberValueProviders = new HashMap<>();
     private final List<Category> categories = new ArrayList<>();
     private final List<Difficulty> difficulties = new ArrayList<>();
 
+    private volatile CompiledBingoConfiguration compiledConfiguration;
+
+    // the parsed sections and where the categories created by each section end, used to reload only changed sections
+    private Map<String, Object> sections;
+    private int categoriesEnd, textSnippetCategoriesEnd;
+    private SnippetGraph snippetGraph;
+
     public BingoConfiguration(File file) throws FileNotFoundException {
-        parse(new Yaml().load(new FileInputStream(file)));
+        this(new FileInputStream(file));
+    }
+
+    public BingoConfiguration(InputStream inputStream) {
+        parse(new Yaml().load(inputStream));
+        compile();
+    }
+
+    /**
+     * Creates an empty configuration that is filled by {@link ConfigurationCache} and compiled afterwards.
+     */
+    BingoConfiguration() {
+    }
+
+    /**
+     * Creates a new immutable snapshot of this configuration that is used to generate tiles from now on.<br>
+     * A snapshot is created when the configuration is loaded. Changes to the tile generators, snippets or categories
+     * of this configuration only take effect once this method is called again.
+     *
+     * @return The new snapshot.
+     */
+    public CompiledBingoConfiguration compile() {
+        compiledConfiguration = new CompiledBingoConfiguration(this);
+        return compiledConfiguration;
+    }
+
+    public CompiledBingoConfiguration getCompiledConfiguration() {
+        return compiledConfiguration;
     }
 
     public BingoBoardMetadata getBoardMetadata() {
         return boardMetadata;
     }
 
+    void setBoardMetadata(BingoBoardMetadata boardMetadata) {
+        this.boardMetadata = boardMetadata;
+    }
+
     public List<TileGenerator> getTileGenerators() {
         return tileGenerators;
     }
@@ -50,112 +86,85 @@ public class BingoConfiguration {
         return difficulties;
     }
 
+    public Map<String, ValueProvider> getValueProviders() {
+        return numberValueProviders;
+    }
+
+    /**
+     * Parses the given configuration and creates a new configuration from it. Sections that are equal to the ones of
+     * this configuration are not parsed again, their elements are shared with this configuration instead. Sections
+     * that depend on a changed section are parsed again: snippets depend on the categories and tile generators depend
+     * on both the categories and the snippets.<br>
+     * This configuration is not modified.
+     *
+     * @return The new configuration, or this configuration if no section changed.
+     */
+    public BingoConfiguration reload(InputStream inputStream) {
+        Object rootObject = new Yaml().load(inputStream);
+        if (sections != null && sections.equals(toSections(rootObject))) {
+            return this;
+        }
+        BingoConfiguration configuration = new BingoConfiguration();
+        configuration.parse(rootObject, this);
+        configuration.compile();
+        return configuration;
+    }
+
     private void parse(Object rootObject) {
-        if (rootObject instanceof Map) {
-            Map<String, Object> rootMap = (Map<String, Object>) rootObject;
+        parse(rootObject, null);
+    }
+
+    private void parse(Object rootObject, BingoConfiguration previous) {
+        Map<String, Object> rootMap = toSections(rootObject);
+        sections = rootMap;
+        CategoryRegistry registry = new CategoryRegistry(categories);
+        boolean categoriesChanged = hasChanged(previous, rootMap, KEY_CATEGORY);
+        boolean textSnippetsChanged = categoriesChanged || hasChanged(previous, rootMap, KEY_TEXT_SNIPPETS);
+        boolean tileGeneratorsChanged = textSnippetsChanged || hasChanged(previous, rootMap, KEY_TILE_GENERATOR);
 
+        if (hasChanged(previous, rootMap, KEY_GENERAL_TITLE, KEY_GENERAL_DESCRIPTION, KEY_GENERAL_GAME, KEY_GENERAL_AUTHORS, KEY_GENERAL_VERSION)) {
             if (BingoBoardMetadata.validate(rootMap)) {
                 boardMetadata = new BingoBoardMetadata(rootMap);
             }
+        } else {
+            boardMetadata = previous.boardMetadata;
+        }
 
-            if (rootMap.containsKey((KEY_CATEGORY))) {
-                Object optionsObject = rootMap.get(KEY_CATEGORY);
-                if (optionsObject instanceof List) {
-                    List<Map<String, Object>> optionsList = (List<Map<String, Object>>) optionsObject;
-                    for (Map<String, Object> optionMap : optionsList) {
-                        if (Category.validate(optionMap)) {
-                            List<String> categoryCategories = (List<String>) optionMap.get(KEY_CATEGORY_CATEGORIES);
-                            for (String categoryCategory : categoryCategories) {
-                                new Category(categoryCategory, optionMap, categories);
-                            }
-                        }
-                    }
-                }
-            }
-
-            if (rootMap.containsKey(KEY_TEXT_SNIPPETS)) {
-                Object optionsObject = rootMap.get(KEY_TEXT_SNIPPETS);
-                if (optionsObject instanceof Map) {
-                    Map<String, Object> optionsMap = (Map<String, Object>) optionsObject;
-                    for (Map.Entry<String, Object> entry : optionsMap.entrySet()) {
-                        if (entry.getValue() instanceof List) {
-                            List<Object> optionsList = (List<Object>) entry.getValue();
-                            for (Object optionObject : optionsList) {
-                                if (optionObject instanceof Map) {
-                                    Map<String, Object> optionMap = (Map<String, Object>) optionObject;
-                                    if (TextSnippet.validate(optionMap)) {
-                                        textSnippets.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(new TextSnippet(optionMap, categories));
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-
-            if (rootMap.containsKey(KEY_TILE_GENERATOR)) {
-                Object optionsObject = rootMap.get(KEY_TILE_GENERATOR);
-                if (optionsObject instanceof List) {
-                    List<Object> optionsList = (List<Object>) optionsObject;
-                    for (Object optionObject : optionsList) {
-                        if (optionObject instanceof Map) {
-                            Map<String, Object> optionMap = (Map<String, Object>) optionObject;
-                            if (TileGenerator.validate(optionMap)) {
-                                tileGenerators.add(new TileGenerator(optionMap, categories, textSnippets));
-                            }
-                        }
-                    }
-                }
-            }
+        // the categories that are created while parsing a section are appended to the list, so the sections can
+        // take over the categories of the previous configuration up to where their section ended
+        if (categoriesChanged) {
+            parseCategories(rootMap, registry);
+        } else {
+            previous.categories.subList(0, previous.categoriesEnd).forEach(registry::register);
+        }
+        categoriesEnd = categories.size();
 
-            if (rootMap.containsKey(KEY_DIFFICULTY)) {
-                Object optionsObject = rootMap.get(KEY_DIFFICULTY);
-                if (optionsObject instanceof List) {
-                    List<Object> optionsList = (List<Object>) optionsObject;
-                    for (Object optionObject : optionsList) {
-                        if (optionObject instanceof Map) {
-                            Map<String, Object> optionMap = (Map<String, Object>) optionObject;
-                            if (Difficulty.validate(optionMap)) {
-                                difficulties.add(new Difficulty(optionMap));
-                            }
-                        }
-                    }
-                }
-            }
+        if (textSnippetsChanged) {
+            parseTextSnippets(rootMap, registry);
+        } else {
+            previous.categories.subList(previous.categoriesEnd, previous.textSnippetCategoriesEnd).forEach(registry::register);
+            textSnippets.putAll(previous.textSnippets);
+            snippetGraph = previous.snippetGraph;
+        }
+        textSnippetCategoriesEnd = categories.size();
 
-            if (rootMap.containsKey(KEY_VALUE_PROVIDERS)) {
-                Object optionsObject = rootMap.get(KEY_VALUE_PROVIDERS);
-                if (optionsObject instanceof Map) {
-                    Map<String, Object> optionsMap = (Map<String, Object>) optionsObject;
-                    for (Map.Entry<String, Object> entry : optionsMap.entrySet()) {
-                        if (entry.getValue() instanceof Map) {
-                            Map<String, Object> optionMap = (Map<String, Object>) entry.getValue();
-                            if (ValueProvider.validate(optionMap)) {
-                                numberValueProviders.put(entry.getKey(), new ValueProvider(optionMap));
-                            }
-                        }
-                    }
-                }
-            }
+        if (tileGeneratorsChanged) {
+            parseTileGenerators(rootMap, registry);
+        } else {
+            previous.categories.subList(previous.textSnippetCategoriesEnd, previous.categories.size()).forEach(registry::register);
+            tileGenerators.addAll(previous.tileGenerators);
         }
 
-        tileGeneratorsByDifficulty.clear();
-        for (TileGenerator tileGenerator : tileGenerators) {
-            if (tileGenerator.getDifficulties().isEmpty()) {
-                for (Difficulty difficulty : difficulties) {
-                    tileGeneratorsByDifficulty.computeIfAbsent(difficulty, k -> new ArrayList<>()).add(tileGenerator);
-                }
-            } else {
-                for (String difficulty : tileGenerator.getDifficulties()) {
-                    tileGeneratorsByDifficulty.computeIfAbsent(getDifficulty(difficulty), k -> new ArrayList<>()).add(tileGenerator);
-                }
-            }
+        if (hasChanged(previous, rootMap, KEY_DIFFICULTY)) {
+            parseDifficulties(rootMap);
+        } else {
+            difficulties.addAll(previous.difficulties);
         }
 
-        for (Map.Entry<String, List<TextSnippet>> snippet : textSnippets.entrySet()) {
-            for (TextSnippet textSnippet : snippet.getValue()) {
-                textSnippet.deriveSnippetCategories(snippet.getKey(), textSnippets);
-            }
+        if (hasChanged(previous, rootMap, KEY_VALUE_PROVIDERS)) {
+            parseValueProviders(rootMap);
+        } else {
+            numberValueProviders.putAll(previous.numberValueProviders);
         }
 
         LOG.info("Loaded [{}] tile generators", tileGenerators.size());
@@ -165,291 +174,145 @@ public class BingoConfiguration {
         LOG.info("Loaded [{}] difficulty levels", difficulties.size());
     }
 
-    public double getDifficultyForLevel(int level) {
-        if (difficulties.isEmpty()) return 1.0;
-        if (difficulties.size() < level) level = difficulties.size();
-        return difficulties.get(level - 1).getScore();
-    }
-
-    public double getDifficultyForLevel(String level) {
-        return difficulties.stream().filter(d -> d.getName().equalsIgnoreCase(level)).findFirst().map(Difficulty::getScore).orElse(1.0);
+    private static Map<String, Object> toSections(Object rootObject) {
+        return rootObject instanceof Map ? (Map<String, Object>) rootObject : Collections.emptyMap();
     }
 
-    public Map<Category, Integer> countCategories(List<BingoTile> tiles) {
-        Map<Category, Integer> counts = new HashMap<>();
-        for (BingoTile tile : tiles) {
-            for (Category category : tile.getCategories()) {
-                counts.compute(category, (k, v) -> v == null ? 1 : v + 1);
+    private static boolean hasChanged(BingoConfiguration previous, Map<String, Object> rootMap, String... keys) {
+        if (previous == null || previous.sections == null) return true;
+        for (String key : keys) {
+            if (!Objects.equals(previous.sections.get(key), rootMap.get(key))) {
+                return true;
             }
         }
-        for (Category category : categories) {
-            counts.putIfAbsent(category, 0);
-        }
-        return counts;
+        return false;
     }
 
-    public BingoTile generateTile(List<BingoTile> existingTiles, int destAmount, double destinationDifficulty, Random random) {
-        List<TileGenerator> allowedTileGeneratorsByDifficulty;
-        if (destinationDifficulty != -1) {
-            allowedTileGeneratorsByDifficulty = tileGeneratorsByDifficulty.getOrDefault(getDifficulty(destinationDifficulty), new ArrayList<>());
-            if (allowedTileGeneratorsByDifficulty.size() == 0) {
-                LOG.warn("No tile generators found for difficulty [{}], using all generators", destinationDifficulty);
-                allowedTileGeneratorsByDifficulty = new ArrayList<>(tileGenerators);
-            }
-        } else {
-            allowedTileGeneratorsByDifficulty = new ArrayList<>(tileGenerators);
-        }
-
-        // find what categories are allowed and not allowed in the existing tiles
-        Map<Category, Integer> categoryCount = countCategories(existingTiles);
-        Set<Category> createdMustBeCategories = new HashSet<>();
-        Set<Category> createdMayNotBeCategories = new HashSet<>();
-        for (Map.Entry<Category, Integer> category : categoryCount.entrySet()) {
-            double min = Math.max(category.getKey().getMinAbsolute(), category.getKey().getMinRelative() * 0.01 * destAmount);
-            double max = Math.ceil(Math.min(category.getKey().getMaxAbsolute(), category.getKey().getMaxRelative() * 0.01 * destAmount));
-            int currentCount = category.getValue();
-            if (currentCount < min) {
-                createdMustBeCategories.add(category.getKey());
-            } else if (currentCount >= max) {
-                createdMayNotBeCategories.add(category.getKey());
-            }
-        }
-
-        List<TileGenerator> filteredTileGenerators = new ArrayList<>(allowedTileGeneratorsByDifficulty);
-        // remove all tile generators that are not the right difficulty level
-        if (destinationDifficulty != -1 && difficulties.size() > 0) {
-            Difficulty destDiff = getDifficulty(destinationDifficulty);
-            for (int i = filteredTileGenerators.size() - 1; i >= 0; i--) {
-                List<String> difficulties = filteredTileGenerators.get(i).getDifficulties();
-                if (difficulties.size() > 0 && !difficulties.contains(destDiff.getName())) {
-                    filteredTileGenerators.remove(i);
+    private void parseCategories(Map<String, Object> rootMap, CategoryRegistry registry) {
+        if (rootMap.containsKey((KEY_CATEGORY))) {
+            Object optionsObject = rootMap.get(KEY_CATEGORY);
+            if (optionsObject instanceof List) {
+                List<Map<String, Object>> optionsList = (List<Map<String, Object>>) optionsObject;
+                for (Map<String, Object> optionMap : optionsList) {
+                    if (Category.validate(optionMap)) {
+                        List<String> categoryCategories = (List<String>) optionMap.get(KEY_CATEGORY_CATEGORIES);
+                        for (String categoryCategory : categoryCategories) {
+                            new Category(categoryCategory, optionMap, registry);
+                        }
+                    }
                 }
             }
         }
-        // remove all tile generators that do not match the must-be categories
-        if (!createdMustBeCategories.isEmpty()) {
-            for (int i = filteredTileGenerators.size() - 1; i >= 0; i--) {
-                TileGenerator tileGenerator = filteredTileGenerators.get(i);
-                Set<Category> derivedCategories = tileGenerator.getDerivedCategories();
-                if (!tileGenerator.containsAnyCategory(createdMustBeCategories) && derivedCategories.stream().noneMatch(createdMustBeCategories::contains)) {
-                    filteredTileGenerators.remove(i);
+    }
+
+    private void parseTextSnippets(Map<String, Object> rootMap, CategoryRegistry registry) {
+        if (rootMap.containsKey(KEY_TEXT_SNIPPETS)) {
+            Object optionsObject = rootMap.get(KEY_TEXT_SNIPPETS);
+            if (optionsObject instanceof Map) {
+                Map<String, Object> optionsMap = (Map<String, Object>) optionsObject;
+                for (Map.Entry<String, Object> entry : optionsMap.entrySet()) {
+                    if (entry.getValue() instanceof List) {
+                        List<Object> optionsList = (List<Object>) entry.getValue();
+                        for (Object optionObject : optionsList) {
+                            if (optionObject instanceof Map) {
+                                Map<String, Object> optionMap = (Map<String, Object>) optionObject;
+                                if (TextSnippet.validate(optionMap)) {
+                                    textSnippets.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(new TextSnippet(optionMap, registry));
+                                }
+                            }
+                        }
+                    }
                 }
             }
         }
-        // remove all tile generators that match the may-not-be categories
-        if (!createdMayNotBeCategories.isEmpty()) {
-            for (int i = filteredTileGenerators.size() - 1; i >= 0; i--) {
-                TileGenerator tileGenerator = filteredTileGenerators.get(i);
-                if (tileGenerator.containsAnyCategory(createdMayNotBeCategories)) {
-                    filteredTileGenerators.remove(i);
-                }
+
+        snippetGraph = new SnippetGraph(textSnippets);
+        for (List<TextSnippet> snippets : textSnippets.values()) {
+            for (TextSnippet textSnippet : snippets) {
+                textSnippet.deriveSnippetCategories(snippetGraph);
             }
         }
+    }
 
-        if (filteredTileGenerators.isEmpty()) {
-            filteredTileGenerators = new ArrayList<>(allowedTileGeneratorsByDifficulty);
-            //LOG.warn("No generator for categories [MUST {}] [CANNOT {}], using all [{}]", createdMustBeCategories, createdMayNotBeCategories, allowedTileGeneratorsByDifficulty.size());
-        }
-        TileGenerator selectedGenerator = getRandom(filteredTileGenerators, random);
-        String text = selectedGenerator.getText();
-        StringJoiner tooltips = new StringJoiner("\n");
-        if (selectedGenerator.getTooltip() != null) tooltips.add(selectedGenerator.getTooltip());
-
-        String currentClosestText = null;
-        double currentClosestDifficulty = Double.MAX_VALUE;
-        String currentClosestTooltips = null;
-        Set<Category> bestTileCategories = new HashSet<>();
-        int repeatCount = 0;
-        int maxAttempts = destinationDifficulty == -1 ? 1 : 3;
-        for (int i = 0; i < maxAttempts; i++) { // try finding a better tile 3 times
-            AtomicReference<Double> currentDifficulty = new AtomicReference<>(selectedGenerator.getDifficulty());
-            Set<Category> currentTileCategories = new HashSet<>();
-            StringJoiner currentTooltips = new StringJoiner("\n");
-            String tmp = insertSnippets(text, createdMustBeCategories, createdMayNotBeCategories, currentDifficulty, destinationDifficulty, currentTileCategories, currentTooltips, random);
-
-            if (destinationDifficulty != -1) {
-                if (repeatCount < 40) {
-                    if (hasAntisynergies(currentTileCategories, selectedGenerator.getCategories()) || doesTileAlreadyExist(tmp, existingTiles)) {
-                        repeatCount++;
-                        i--;
-                        continue;
+    private void parseTileGenerators(Map<String, Object> rootMap, CategoryRegistry registry) {
+        if (rootMap.containsKey(KEY_TILE_GENERATOR)) {
+            Object optionsObject = rootMap.get(KEY_TILE_GENERATOR);
+            if (optionsObject instanceof List) {
+                List<Object> optionsList = (List<Object>) optionsObject;
+                for (Object optionObject : optionsList) {
+                    if (optionObject instanceof Map) {
+                        Map<String, Object> optionMap = (Map<String, Object>) optionObject;
+                        if (TileGenerator.validate(optionMap)) {
+                            tileGenerators.add(new TileGenerator(optionMap, registry, snippetGraph));
+                        }
                     }
                 }
             }
-            double currentDistance = Math.abs(currentDifficulty.get() - destinationDifficulty);
-            double currentClosestDistance = Math.abs(currentClosestDifficulty - destinationDifficulty);
-            if (currentDistance < currentClosestDistance) {
-                currentClosestText = tmp;
-                currentClosestDifficulty = currentDifficulty.get();
-                bestTileCategories = currentTileCategories;
-                currentClosestTooltips = currentTooltips.toString();
-            }
-        }
-        if (currentClosestText != null) {
-            text = currentClosestText;
-            currentClosestDifficulty -= selectedGenerator.getDifficulty();
         }
-        if (currentClosestTooltips != null && !currentClosestTooltips.isEmpty()) {
-            tooltips.add(currentClosestTooltips);
-        }
-
-        BingoTile bingoTile = new BingoTile(text, tooltips.toString(), currentClosestDifficulty + selectedGenerator.getDifficulty());
-        selectedGenerator.getCategories().forEach(bingoTile::addCategory);
-        bestTileCategories.forEach(bingoTile::addCategory);
-        return bingoTile;
     }
 
-    private boolean doesTileAlreadyExist(String text, List<BingoTile> tiles) {
-        return tiles.stream().anyMatch(tile -> tile.isTextEqual(text));
-    }
-
-    private boolean hasAntisynergies(Collection<Category> c1, Collection<Category> c2) {
-        for (Category cat1 : c1) {
-            for (Category cat2 : c2) {
-                if (cat1.getAntisynergy().contains(cat2)) {
-                    return true;
-                } else if (cat2.getAntisynergy().contains(cat1)) {
-                    return true;
+    private void parseDifficulties(Map<String, Object> rootMap) {
+        if (rootMap.containsKey(KEY_DIFFICULTY)) {
+            Object optionsObject = rootMap.get(KEY_DIFFICULTY);
+            if (optionsObject instanceof List) {
+                List<Object> optionsList = (List<Object>) optionsObject;
+                for (Object optionObject : optionsList) {
+                    if (optionObject instanceof Map) {
+                        Map<String, Object> optionMap = (Map<String, Object>) optionObject;
+                        if (Difficulty.validate(optionMap)) {
+                            difficulties.add(new Difficulty(optionMap));
+                        }
+                    }
                 }
             }
         }
-        return false;
     }
 
-    private String insertSnippets(String text,
-                                  Set<Category> createdMustBeCategories, Set<Category> createdMayNotBeCategories,
-                                  AtomicReference<Double> currentDifficulty, double destinationDifficulty,
-                                  Set<Category> tileCategories,
-                                  StringJoiner currentTooltips,
-                                  Random random) {
-        boolean found;
-        do {
-            found = false;
-            Matcher snippetsMatcher = TextSnippet.SNIPPET_PATTERN.matcher(text);
-            while (snippetsMatcher.find()) {
-                String snippetType = snippetsMatcher.group(1);
-
-                // check if there are conditions or extra snippet types to be extracted
-                List<String> conditions = new ArrayList<>();
-                if (snippetType.contains(":")) {
-                    Arrays.stream(snippetType.split(":")).skip(1).forEach(conditions::add);
-                    snippetType = snippetType.split(":")[0];
-                }
-
-                if (textSnippets.containsKey(snippetType)) {
-                    // check if some conditions are actually snippet types
-                    List<String> snippetTypes = new ArrayList<>();
-                    snippetTypes.add(snippetType);
-                    for (int i = conditions.size() - 1; i >= 0; i--) {
-                        String condition = conditions.get(i);
-                        if (!condition.contains("(") && textSnippets.containsKey(condition)) {
-                            snippetTypes.add(condition);
-                            conditions.remove(i);
+    private void parseValueProviders(Map<String, Object> rootMap) {
+        if (rootMap.containsKey(KEY_VALUE_PROVIDERS)) {
+            Object optionsObject = rootMap.get(KEY_VALUE_PROVIDERS);
+            if (optionsObject instanceof Map) {
+                Map<String, Object> optionsMap = (Map<String, Object>) optionsObject;
+                for (Map.Entry<String, Object> entry : optionsMap.entrySet()) {
+                    if (entry.getValue() instanceof Map) {
+                        Map<String, Object> optionMap = (Map<String, Object>) entry.getValue();
+                        if (ValueProvider.validate(optionMap)) {
+                            numberValueProviders.put(entry.getKey(), new ValueProvider(optionMap));
                         }
                     }
-
-                    List<TextSnippet> snippets = getTextSnippets(snippetTypes, createdMustBeCategories, createdMayNotBeCategories, conditions, text);
-                    TextSnippet selectedSnippet = getRandom(snippets, random);
-
-                    currentDifficulty.set(currentDifficulty.get() + selectedSnippet.getDifficulty());
-                    tileCategories.addAll(selectedSnippet.getCategories());
-                    if (selectedSnippet.getTooltip() != null) currentTooltips.add(selectedSnippet.getTooltip());
-                    text = text.replaceFirst(Pattern.quote(snippetsMatcher.group()), selectedSnippet.getText());
-
-                    found = true;
-                    continue;
-                }
-
-                // check if it is a value provider or a random number generator
-                ValueProvider valueProvider = numberValueProviders.getOrDefault(snippetType, null);
-                if (valueProvider != null) {
-                    Difficulty difficulty = getDifficulty(destinationDifficulty);
-                    ValueProvider.NumberProviderResult result = valueProvider.getValue(difficulty.getName());
-                    if (result != null) {
-                        text = text.replaceFirst(Pattern.quote(snippetsMatcher.group()), String.valueOf(result.getValue()));
-                        currentDifficulty.set(currentDifficulty.get() + result.getScore());
-                    }
-                } else if (snippetType.matches("-?\\d+-?\\d+")) {
-                    int min = Integer.parseInt(snippetType.split("-")[0]);
-                    int max = Integer.parseInt(snippetType.split("-")[1]);
-                    text = text.replaceFirst(Pattern.quote(snippetsMatcher.group()), String.valueOf(random.nextInt(max - min + 1) + min));
                 }
             }
-        } while (found);
-        return text;
+        }
     }
 
-    private List<TextSnippet> getSnippets(List<String> snippetTypes) {
-        List<TextSnippet> snippets = new ArrayList<>();
-        for (String snippetType : snippetTypes) {
-            if (textSnippets.containsKey(snippetType)) {
-                snippets.addAll(textSnippets.get(snippetType));
-            }
-        }
-        return snippets;
+    public double getDifficultyForLevel(int level) {
+        if (difficulties.isEmpty()) return 1.0;
+        if (difficulties.size() < level) level = difficulties.size();
+        return difficulties.get(level - 1).getScore();
     }
 
-    private List<TextSnippet> getTextSnippets(List<String> snippetTypes, Set<Category> createdMustBeCategories, Set<Category> createdMayNotBeCategories, List<String> conditions, String textSoFar) {
-        List<TextSnippet> limitedSnippets = getSnippets(snippetTypes);
+    public double getDifficultyForLevel(String level) {
+        return difficulties.stream().filter(d -> d.getName().equalsIgnoreCase(level)).findFirst().map(Difficulty::getScore).orElse(1.0);
+    }
 
-        if (conditions.size() > 0) {
-            List<TextSnippet> filteredSnippets = new ArrayList<>();
-            for (TextSnippet snippet : limitedSnippets) {
-                boolean valid = true;
-                for (String condition : conditions) {
-                    if (!snippet.matchesCondition(condition, textSoFar)) {
-                        valid = false;
-                        break;
-                    }
-                }
-                if (valid) filteredSnippets.add(snippet);
-            }
-            if (filteredSnippets.size() == 0) {
-                //LOG.warn("No snippets found for type [{}] with conditions {}", snippetTypes, conditions);
-            } else {
-                limitedSnippets = filteredSnippets;
-            }
-        }
+    public Map<Category, Integer> countCategories(List<BingoTile> tiles) {
+        return compiledConfiguration.countCategories(tiles);
+    }
 
-        if (!createdMustBeCategories.isEmpty()) {
-            List<TextSnippet> filteredSnippets = new ArrayList<>();
-            for (TextSnippet snippet : limitedSnippets) {
-                boolean valid = true;
-                for (Category category : createdMustBeCategories) {
-                    if (!snippet.getCategories().contains(category)) {
-                        valid = false;
-                        break;
-                    }
-                }
-                if (valid) filteredSnippets.add(snippet);
-            }
-            if (filteredSnippets.size() == 0) {
-                //LOG.warn("No snippets found for type {} with must-be categories {}", snippetTypes, createdMustBeCategories);
-            } else {
-                limitedSnippets = filteredSnippets;
-            }
-        }
+    public BingoTile generateTile(List<BingoTile> existingTiles, int destAmount, double destinationDifficulty, Random random) {
+        return compiledConfiguration.generateTile(existingTiles, destAmount, destinationDifficulty, random);
+    }
 
-        if (!createdMayNotBeCategories.isEmpty()) {
-            List<TextSnippet> filteredSnippets = new ArrayList<>();
-            for (TextSnippet snippet : limitedSnippets) {
-                boolean valid = true;
-                for (Category category : createdMayNotBeCategories) {
-                    if (snippet.getCategories().contains(category)) {
-                        valid = false;
-                        break;
-                    }
-                }
-                if (valid) filteredSnippets.add(snippet);
-            }
-            if (filteredSnippets.size() == 0) {
-                //LOG.warn("No snippets found for type {} with may-not categories {}", snippetTypes, createdMayNotBeCategories);
-            } else {
-                limitedSnippets = filteredSnippets;
-            }
-        }
+    public BingoTile generateTile(List<BingoTile> existingTiles, int destAmount, double destinationDifficulty, RandomSource random) {
+        return compiledConfiguration.generateTile(existingTiles, destAmount, destinationDifficulty, random);
+    }
+
+    public BingoTile generateTile(GenerationContext context, double destinationDifficulty, Random random) {
+        return compiledConfiguration.generateTile(context, destinationDifficulty, random);
+    }
 
-        return limitedSnippets;
+    public BingoTile generateTile(GenerationContext context, double destinationDifficulty, RandomSource random) {
+        return compiledConfiguration.generateTile(context, destinationDifficulty, random);
     }
 
     public Difficulty getDifficulty(double difficulty) {
@@ -475,16 +338,11 @@ public class BingoConfiguration {
     }
 
     public <T extends Weightable> T getRandom(Collection<T> collection, Random random) {
-        double totalWeight = collection.stream().mapToDouble(Weightable::getWeight).sum();
-        double randomValue = random.nextDouble() * totalWeight;
-        double currentWeight = 0;
-        for (T weightable : collection) {
-            currentWeight += weightable.getWeight();
-            if (currentWeight >= randomValue) {
-                return weightable;
-            }
-        }
-        return collection.stream().findAny().orElse(null);
+        return WeightedSampler.sample(collection, random);
+    }
+
+    public <T extends Weightable> T getRandom(Collection<T> collection, RandomSource random) {
+        return WeightedSampler.sample(collection, random);
     }
 
     static void validateContained(Map<String, Object> optionMap, String key, boolean forcePresent, Class<?>... clazz) {
@@ -2,124 +2,321 @@ package de.yanwittmann.bingo.generator;
 
 import de.yanwittmann.bingo.BingoBoard;
 import de.yanwittmann.bingo.BingoTile;
+import de.yanwittmann.bingo.interfaces.RandomSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class BingoGenerator {
 
-    private final Logger LOG = LoggerFactory.getLogger(getClass());
+    private final static Logger LOG = LoggerFactory.getLogger(BingoGenerator.class);
 
-    private BingoConfiguration configuration;
+    private volatile BingoConfiguration configuration;
+    private volatile CompiledBingoConfiguration compiledConfiguration;
+    private volatile ConfigurationWatcher configurationWatcher;
     private double difficulty = 2;
     private int width = 5;
     private int height = 5;
     private int maxGenerationAttempts = -1;
+    private OptimizationMode optimizationMode = OptimizationMode.CREATE_AND_REMOVE;
+    private double difficultyTolerance = -1;
+    private LayoutMode layoutMode = LayoutMode.SHUFFLE;
+    private int maxLayoutIterations = 20000;
+    private ForkJoinPool layoutPool;
+    private GenerationListener generationListener = GenerationListener.NONE;
 
     public BingoGenerator(File configurationFile) throws FileNotFoundException {
-        this.configuration = new BingoConfiguration(configurationFile);
+        setConfiguration(new BingoConfiguration(configurationFile));
     }
 
     public BingoGenerator(BingoConfiguration configuration) {
-        this.configuration = configuration;
+        setConfiguration(configuration);
+    }
+
+    public BingoGenerator(CompiledBingoConfiguration compiledConfiguration) {
+        setCompiledConfiguration(compiledConfiguration);
+    }
+
+    /**
+     * Creates a generator that always uses the latest configuration of the watcher. Each board is generated from the
+     * snapshot that was current when its generation started.
+     */
+    public BingoGenerator(ConfigurationWatcher configurationWatcher) {
+        setConfigurationWatcher(configurationWatcher);
     }
 
     public BingoBoard generateBingoBoard() {
-        return generateBingoBoard(new Random());
+        return generateBingoBoard(RandomSource.create());
     }
 
+    /**
+     * Generates a board using the given {@link Random}. Seeded instances always result in the same board.
+     */
     public BingoBoard generateBingoBoard(Random random) {
+        return generateBingoBoard(RandomSource.of(random));
+    }
+
+    public BingoBoard generateBingoBoard(RandomSource random) {
+        return generate(random, null).getBoard();
+    }
+
+    /**
+     * Generates a board that has to be finished within the given time.<br>
+     * Most of the time is spent on finding tiles that match the difficulty, the rest on placing them on the board.
+     * Both phases stop early once the difficulty tolerance is met or the time is up and continue with the best result
+     * so far. Every board needs a minimum amount of work, so a very short timeout can still be exceeded.
+     *
+     * @param random  The random source to generate the board with.
+     * @param timeout The time the generation may take, or <code>null</code> to only be limited by the attempts.
+     * @return The generated board and the reason why the generation stopped.
+     */
+    public GenerationResult generate(RandomSource random, Duration timeout) {
+        // the snapshot is captured once, so that the whole board is generated from the same configuration
+        CompiledBingoConfiguration configuration = getCompiledConfiguration();
         if (configuration == null) {
             throw new IllegalStateException("Bingo configuration is not set.");
         }
 
-        List<BingoTile> tiles = new ArrayList<>();
+        Object event = GenerationEvents.get().beginBoard();
+        long start = Deadline.now();
+        long deadline = Deadline.after(timeout);
+        long tileDeadline = timeout == null ? Deadline.NONE : start + (long) (timeout.toNanos() * TILE_SELECTION_TIME_SHARE);
+
+        GenerationContext context = new GenerationContext(configuration.getCategories(), width * height);
         int maxAttempts = this.maxGenerationAttempts == -1 ? (2000 / Math.max(1, width * height - 10)) + 10 : this.maxGenerationAttempts;
         LOG.info("Generation attempts [{}]", maxAttempts);
         LOG.info("Generating board with [{}]x[{}]", width, height);
         LOG.info("Difficulty [{}]", difficulty);
+        GenerationListener listener = generationListener;
+        fillBoard(configuration, context, listener, random);
+        long filled = Deadline.now();
+        listener.onPhaseCompleted(GenerationPhase.FILL, filled - start);
+
+        // annealing counts single replaced tiles, the original algorithm whole rounds of replacing tiles
+        int maxOptimizationAttempts = optimizationMode == OptimizationMode.ANNEALING ? maxAttempts * width * height : maxAttempts;
+        Optimization optimization;
         if (difficulty == -1) {
-            fillBoard(tiles, random);
+            optimization = new Optimization(StopReason.TARGET_REACHED, 0);
+        } else if (optimizationMode == OptimizationMode.ANNEALING) {
+            optimization = annealTiles(configuration, context, maxOptimizationAttempts, tileDeadline, listener, random);
         } else {
-            for (int i = 0; i < maxAttempts; i++) {
-                createAndRemoveTiles(tiles, width * height, random);
-            }
+            optimization = createAndRemoveRounds(configuration, context, maxOptimizationAttempts, tileDeadline, listener, random);
+        }
+        StopReason stopReason = optimization.stopReason;
+        if (difficulty != -1) {
+            listener.onPhaseCompleted(GenerationPhase.OPTIMIZE, Deadline.now() - filled);
         }
 
+        List<BingoTile> tiles = new ArrayList<>(context.getTiles());
         BingoBoard board = new BingoBoard(width, height);
-        board.populate(tiles, configuration.getCategories(), random);
+        board.setLayoutMode(layoutMode);
+        board.setMaxLayoutIterations(maxLayoutIterations);
+        board.setLayoutPool(layoutPool);
+        board.setGenerationListener(listener);
         board.setBoardMetadata(configuration.getBoardMetadata());
-        board.setCategoryCount(configuration.countCategories(tiles));
-        board.setDifficulty(calculateDifficulty(tiles));
+        board.setCategoryCount(context.getCategoryCount());
+        board.setDifficulty(context.getAverageDifficulty());
+        if (board.populate(tiles, configuration.getCategoryRelations(), random, deadline) == StopReason.DEADLINE) {
+            stopReason = StopReason.DEADLINE;
+        }
+        GenerationEvents.get().commitBoard(event, width, height, difficulty, GenerationEvents.getTitle(board.getBoardMetadata()),
+                optimization.attempts, maxOptimizationAttempts, stopReason, context.getAverageDifficulty(), board.getLayoutScore());
 
-        LOG.info("Board difficulty is [{}]", calculateDifficulty(tiles));
+        LOG.info("Board difficulty is [{}]", context.getAverageDifficulty());
         LOG.info("Categories [{}]", board.getCategoryCount());
+        LOG.info("Generation stopped with [{}]", stopReason);
+
+        return new GenerationResult(board, stopReason, Deadline.now() - start);
+    }
+
+    /**
+     * Generates multiple boards in parallel on the common fork/join pool.<br>
+     * See {@link #generateBingoBoards(long, int, ForkJoinPool)}.
+     */
+    public List<BingoBoard> generateBingoBoards(long seed, int count) {
+        return generateBingoBoards(seed, count, ForkJoinPool.commonPool());
+    }
 
-        return board;
+    /**
+     * Generates multiple boards in parallel on the given pool.<br>
+     * Every board uses its own random stream that is derived from the seed and the index of the board, so board
+     * <code>n</code> is always the same, no matter how many threads are used or in what order the boards are
+     * generated. A single board of a batch can be reproduced using {@link #generateBingoBoard(long, int)}.<br>
+     * The settings of this generator must not be changed while the batch is being generated.
+     *
+     * @param seed  The seed to derive the random streams of the boards from.
+     * @param count The amount of boards to generate.
+     * @param pool  The pool to generate the boards on.
+     * @return The generated boards, ordered by their index.
+     */
+    public List<BingoBoard> generateBingoBoards(long seed, int count, ForkJoinPool pool) {
+        if (getCompiledConfiguration() == null) {
+            throw new IllegalStateException("Bingo configuration is not set.");
+        }
+        return pool.submit(() -> IntStream.range(0, count).parallel()
+                .mapToObj(index -> generateBingoBoard(seed, index))
+                .collect(Collectors.toList())
+        ).join();
     }
 
-    private void createAndRemoveTiles(List<BingoTile> tiles, int maxTileCount, Random random) {
-        for (int i = 0; i < maxTileCount; i++) {
-            fillBoard(tiles, random);
-            ArrayList<BingoTile> backup = new ArrayList<>(tiles);
+    /**
+     * Generates the board with the given index of a batch, see {@link #generateBingoBoards(long, int, ForkJoinPool)}.
+     */
+    public BingoBoard generateBingoBoard(long seed, int index) {
+        return generateBingoBoard(RandomSource.create(deriveSeed(seed, index)));
+    }
+
+    private static long deriveSeed(long seed, int index) {
+        // SplitMix64 finalizer, spreads neighbouring indices over unrelated seeds
+        long z = seed + (index + 1L) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * The original algorithm, see {@link OptimizationMode#CREATE_AND_REMOVE}. The board has to be filled already.
+     */
+    private Optimization createAndRemoveRounds(CompiledBingoConfiguration configuration, GenerationContext context, int maxAttempts, long deadline,
+                                               GenerationListener listener, RandomSource random) {
+        int attempts = 0;
+        while (attempts < maxAttempts) {
+            createAndRemoveTiles(configuration, context, width * height, deadline, listener, random);
+            attempts++;
+            // the original algorithm only stops early if a tolerance has been asked for
+            if (difficultyTolerance != -1 && isWithinTolerance(context)) {
+                return new Optimization(StopReason.TARGET_REACHED, attempts);
+            } else if (Deadline.isReached(deadline)) {
+                return new Optimization(StopReason.DEADLINE, attempts);
+            }
+        }
+        return new Optimization(StopReason.ATTEMPTS_EXHAUSTED, attempts);
+    }
+
+    private void createAndRemoveTiles(CompiledBingoConfiguration configuration, GenerationContext context, int maxTileCount, long deadline,
+                                      GenerationListener listener, RandomSource random) {
+        Object event = GenerationEvents.get().beginTileReplacement();
+        int i = 0;
+        for (; i < maxTileCount && !Deadline.isReached(deadline); i++) {
+            fillBoard(configuration, context, listener, random);
+            List<BingoTile> backup = new ArrayList<>(context.getTiles());
+            double oldDifficultyDistance = distanceToDestinationDifficulty(context.getAverageDifficulty());
             if (difficulty != -1) {
-                removeByDifficulty(tiles, (width + height) / 2);
+                removeByDifficulty(context, (width + height) / 2);
             } else {
-                removeRandom(tiles, (width + height) / 2, random);
+                removeRandom(context, (width + height) / 2, random);
             }
-            fillBoard(tiles, random);
-            double newDifficultyDistance = distanceToDestinationDifficulty(calculateDifficulty(tiles));
-            double oldDifficultyDistance = distanceToDestinationDifficulty(calculateDifficulty(backup));
+            fillBoard(configuration, context, listener, random);
+            double newDifficultyDistance = distanceToDestinationDifficulty(context.getAverageDifficulty());
             if (newDifficultyDistance > oldDifficultyDistance) {
-                tiles.clear();
-                tiles.addAll(backup);
-                removeRandom(tiles, 2, random);
-                fillBoard(tiles, random);
-                newDifficultyDistance = distanceToDestinationDifficulty(calculateDifficulty(tiles));
-                oldDifficultyDistance = distanceToDestinationDifficulty(calculateDifficulty(backup));
+                context.restore(backup);
+                removeRandom(context, 2, random);
+                fillBoard(configuration, context, listener, random);
+                newDifficultyDistance = distanceToDestinationDifficulty(context.getAverageDifficulty());
                 if (newDifficultyDistance > oldDifficultyDistance) {
-                    tiles.clear();
-                    tiles.addAll(backup);
+                    context.restore(backup);
                 } else if (newDifficultyDistance < oldDifficultyDistance) {
-                    LOG.info("Found better board [{}] -> [{}] [{}]", oldDifficultyDistance, newDifficultyDistance, calculateDifficulty(tiles));
+                    listener.onImprovement(oldDifficultyDistance, newDifficultyDistance, context.getAverageDifficulty());
                 }
             } else if (newDifficultyDistance < oldDifficultyDistance) {
-                LOG.info("Found better board [{}] -> [{}] [{}]", oldDifficultyDistance, newDifficultyDistance, calculateDifficulty(tiles));
+                listener.onImprovement(oldDifficultyDistance, newDifficultyDistance, context.getAverageDifficulty());
             }
         }
+        GenerationEvents.get().commitTileReplacement(event, width, height, difficulty, GenerationEvents.getTitle(configuration.getBoardMetadata()),
+                i, context.getAverageDifficulty());
     }
 
-    private void removeByDifficulty(List<BingoTile> tiles, int amount) {
-        tiles.sort((o1, o2) -> Double.compare(o2.getDifficulty(), o1.getDifficulty()));
-        for (int i = 0; i < amount && tiles.size() > 0; i++) {
-            double currentDifficulty = calculateDifficulty(tiles);
+    /**
+     * Replaces one random tile per iteration with a newly generated one. Better boards are always kept, worse boards
+     * are kept with a probability that decreases over time to escape local optima. The best board that was found is
+     * restored at the end. The board has to be filled already.
+     */
+    private Optimization annealTiles(CompiledBingoConfiguration configuration, GenerationContext context, int iterations, long deadline,
+                                     GenerationListener listener, RandomSource random) {
+        int tileCount = context.size();
+        if (tileCount == 0) return new Optimization(StopReason.TARGET_REACHED, 0);
+        Object event = GenerationEvents.get().beginTileReplacement();
+
+        double currentDistance = distanceToDestinationDifficulty(context.getAverageDifficulty());
+        double bestDistance = currentDistance;
+        List<BingoTile> best = new ArrayList<>(context.getTiles());
+
+        // replacing a single tile changes the average by roughly 1 / tileCount
+        double temperature = 1.0 / tileCount;
+        double cooling = Math.pow(ANNEALING_FINAL_TEMPERATURE_FACTOR, 1.0 / Math.max(1, iterations));
+
+        double tolerance = getDifficultyTolerance();
+        StopReason stopReason = StopReason.ATTEMPTS_EXHAUSTED;
+        int i = 0;
+        for (; i < iterations; i++) {
+            if (bestDistance <= tolerance) {
+                stopReason = StopReason.TARGET_REACHED;
+                break;
+            } else if (Deadline.isReached(deadline)) {
+                stopReason = StopReason.DEADLINE;
+                break;
+            }
+            double difficultySum = context.getAverageDifficulty() * tileCount;
+            BingoTile removed = context.remove(random.nextInt(tileCount));
+            BingoTile candidate = configuration.generateTile(context, difficulty, random, listener);
+
+            double candidateDistance = distanceToDestinationDifficulty((difficultySum - removed.getDifficulty() + candidate.getDifficulty()) / tileCount);
+            double delta = candidateDistance - currentDistance;
+            if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                context.add(candidate);
+                currentDistance = candidateDistance;
+                if (currentDistance < bestDistance) {
+                    listener.onImprovement(bestDistance, currentDistance, context.getAverageDifficulty());
+                    bestDistance = currentDistance;
+                    best = new ArrayList<>(context.getTiles());
+                }
+            } else {
+                context.add(removed);
+            }
+            temperature *= cooling;
+        }
+
+        context.restore(best);
+        GenerationEvents.get().commitTileReplacement(event, width, height, difficulty, GenerationEvents.getTitle(configuration.getBoardMetadata()),
+                i, context.getAverageDifficulty());
+        return new Optimization(bestDistance <= tolerance ? StopReason.TARGET_REACHED : stopReason, i);
+    }
+
+    private void removeByDifficulty(GenerationContext context, int amount) {
+        context.sort((o1, o2) -> Double.compare(o2.getDifficulty(), o1.getDifficulty()));
+        for (int i = 0; i < amount && context.size() > 0; i++) {
+            double currentDifficulty = context.getAverageDifficulty();
             if (currentDifficulty > difficulty) {
-                tiles.remove(0);
+                context.remove(0);
             } else {
-                tiles.remove(tiles.size() - 1);
+                context.remove(context.size() - 1);
             }
         }
     }
 
-    private void removeRandom(List<BingoTile> tiles, int amount, Random random) {
-        for (int i = 0; i < amount && tiles.size() > 0; i++) {
-            tiles.remove(random.nextInt(tiles.size()));
+    private void removeRandom(GenerationContext context, int amount, RandomSource random) {
+        for (int i = 0; i < amount && context.size() > 0; i++) {
+            context.remove(random.nextInt(context.size()));
         }
     }
 
-    private void fillBoard(List<BingoTile> tiles, Random random) {
+    private void fillBoard(CompiledBingoConfiguration configuration, GenerationContext context, GenerationListener listener, RandomSource random) {
         int tileCount = width * height;
-        while (tiles.size() < tileCount)
-            tiles.add(configuration.generateTile(tiles, width * height, difficulty, random));
+        while (context.size() < tileCount)
+            context.add(configuration.generateTile(context, difficulty, random, listener));
     }
 
-    private double calculateDifficulty(List<BingoTile> tiles) {
-        return tiles.stream().mapToDouble(BingoTile::getDifficulty).average().orElse(0.0);
+    private boolean isWithinTolerance(GenerationContext context) {
+        return distanceToDestinationDifficulty(context.getAverageDifficulty()) <= getDifficultyTolerance();
     }
 
     private double distanceToDestinationDifficulty(double difficulty) {
@@ -127,13 +324,47 @@ public class BingoGenerator {
     }
 
     public BingoConfiguration getConfiguration() {
-        return configuration;
+        ConfigurationWatcher watcher = configurationWatcher;
+        return watcher != null ? watcher.getConfiguration() : configuration;
     }
 
+    /**
+     * Sets the configuration that boards are generated from. Its latest snapshot is used, so boards that are started
+     * after {@link BingoConfiguration#compile()} is called again use the new snapshot.
+     */
     public void setConfiguration(BingoConfiguration configuration) {
+        this.configurationWatcher = null;
+        this.compiledConfiguration = null;
         this.configuration = configuration;
     }
 
+    public CompiledBingoConfiguration getCompiledConfiguration() {
+        ConfigurationWatcher watcher = configurationWatcher;
+        if (watcher != null) return watcher.getCompiledConfiguration();
+        BingoConfiguration configuration = this.configuration;
+        return configuration != null ? configuration.getCompiledConfiguration() : compiledConfiguration;
+    }
+
+    /**
+     * Sets the snapshot that boards are generated from. Boards that are currently being generated keep using the
+     * snapshot they started with.
+     */
+    public void setCompiledConfiguration(CompiledBingoConfiguration compiledConfiguration) {
+        this.configurationWatcher = null;
+        this.configuration = null;
+        this.compiledConfiguration = compiledConfiguration;
+    }
+
+    public ConfigurationWatcher getConfigurationWatcher() {
+        return configurationWatcher;
+    }
+
+    public void setConfigurationWatcher(ConfigurationWatcher configurationWatcher) {
+        this.configuration = null;
+        this.compiledConfiguration = null;
+        this.configurationWatcher = configurationWatcher;
+    }
+
     public double getDifficulty() {
         return difficulty;
     }
@@ -143,11 +374,11 @@ public class BingoGenerator {
     }
 
     public void setDifficultyLevel(int difficulty) {
-        this.difficulty = configuration.getDifficultyForLevel(difficulty);
+        this.difficulty = getCompiledConfiguration().getDifficultyForLevel(difficulty);
     }
 
     public void setDifficultyLevel(String difficulty) {
-        this.difficulty = configuration.getDifficultyForLevel(difficulty);
+        this.difficulty = getCompiledConfiguration().getDifficultyForLevel(difficulty);
     }
 
     public int getWidth() {
@@ -173,4 +404,80 @@ public class BingoGenerator {
     public int getMaxGenerationAttempts() {
         return maxGenerationAttempts;
     }
+
+    public OptimizationMode getOptimizationMode() {
+        return optimizationMode;
+    }
+
+    public void setOptimizationMode(OptimizationMode optimizationMode) {
+        this.optimizationMode = optimizationMode;
+    }
+
+    public double getDifficultyTolerance() {
+        return difficultyTolerance == -1 ? DEFAULT_DIFFICULTY_TOLERANCE : difficultyTolerance;
+    }
+
+    /**
+     * @param difficultyTolerance How close the average difficulty of the board has to be to the destination difficulty
+     *                            for the generation to stop early, or <code>-1</code> for the default tolerance. The
+     *                            {@link OptimizationMode#CREATE_AND_REMOVE} mode only stops early if a tolerance is set.
+     */
+    public void setDifficultyTolerance(double difficultyTolerance) {
+        this.difficultyTolerance = difficultyTolerance;
+    }
+
+    public LayoutMode getLayoutMode() {
+        return layoutMode;
+    }
+
+    public void setLayoutMode(LayoutMode layoutMode) {
+        this.layoutMode = layoutMode;
+    }
+
+    public int getMaxLayoutIterations() {
+        return maxLayoutIterations;
+    }
+
+    public void setMaxLayoutIterations(int maxLayoutIterations) {
+        this.maxLayoutIterations = maxLayoutIterations;
+    }
+
+    public ForkJoinPool getLayoutPool() {
+        return layoutPool;
+    }
+
+    /**
+     * @param layoutPool The pool to place the tiles of a board on in parallel, see {@link BingoBoard#setLayoutPool}.
+     *                   Boards of a batch are already generated in parallel and usually do not need it.
+     */
+    public void setLayoutPool(ForkJoinPool layoutPool) {
+        this.layoutPool = layoutPool;
+    }
+
+    public GenerationListener getGenerationListener() {
+        return generationListener;
+    }
+
+    /**
+     * @param generationListener The listener to notify about the generation of the following boards, or
+     *                           <code>null</code> to not notify anyone. It is also notified while the tiles are placed on
+     *                           the board. Boards of a batch are generated in parallel, see {@link GenerationListener}.
+     */
+    public void setGenerationListener(GenerationListener generationListener) {
+        this.generationListener = generationListener == null ? GenerationListener.NONE : generationListener;
+    }
+
+    private static class Optimization {
+        private final StopReason stopReason;
+        private final int attempts;
+
+        private Optimization(StopReason stopReason, int attempts) {
+            this.stopReason = stopReason;
+            this.attempts = attempts;
+        }
+    }
+
+    private final static double DEFAULT_DIFFICULTY_TOLERANCE = 0.005;
+    private final static double ANNEALING_FINAL_TEMPERATURE_FACTOR = 0.001;
+    private final static double TILE_SELECTION_TIME_SHARE = 0.9;
 }
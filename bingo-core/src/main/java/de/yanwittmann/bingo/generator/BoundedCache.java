@@ -0,0 +1,38 @@
+package de.yanwittmann.bingo.generator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread-safe cache for values that can be recalculated at any time from their key.<br>
+ * Once the cache holds the maximum amount of entries, it is cleared before new entries are added. This keeps lookups
+ * lock-free, which matters more here than keeping the most recently used entries.
+ */
+class BoundedCache<K, V> {
+
+    private final Map<K, V> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    BoundedCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    V get(K key) {
+        return entries.get(key);
+    }
+
+    void put(K key, V value) {
+        if (entries.size() >= maxSize) {
+            entries.clear();
+        }
+        entries.put(key, value);
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+}
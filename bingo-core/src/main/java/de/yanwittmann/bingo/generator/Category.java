@@ -1,26 +1,31 @@
 package de.yanwittmann.bingo.generator;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class Category {
 
-    private static final Logger LOG = LoggerFactory.getLogger(Category.class);
-
     private String name;
     private double maxAbsolute = Double.MAX_VALUE, maxRelative = Double.MAX_VALUE;
     private double minAbsolute = 0, minRelative = 0;
-    private final List<Category> synergies = new ArrayList<>();
-    private final List<Category> antisynergy = new ArrayList<>();
+    private List<Category> synergies = new ArrayList<>();
+    private List<Category> antisynergy = new ArrayList<>();
+    private int id = -1;
+    private boolean frozen = false;
+    private CategoryMask synergyMask = new CategoryMask();
+    private CategoryMask antisynergyMask = new CategoryMask();
 
     public Category(String category, Map<String, Object> optionMap, List<Category> categories) {
-        categories.add(this);
+        this(category, optionMap, new CategoryRegistry(categories));
+    }
+
+    public Category(String category, Map<String, Object> optionMap, CategoryRegistry categories) {
         this.name = category;
+        categories.register(this);
         Map<String, Object> maxMap = (Map<String, Object>) optionMap.getOrDefault(BingoConfiguration.KEY_CATEGORY_MAX, null);
         Map<String, Object> minMap = (Map<String, Object>) optionMap.getOrDefault(BingoConfiguration.KEY_CATEGORY_MIN, null);
         if (maxMap != null) {
@@ -47,19 +52,68 @@ public class Category {
         this.name = name;
     }
 
+    /**
+     * Creates a category from values that were already validated, used when loading a cached configuration.
+     */
+    Category(String name, double maxAbsolute, double maxRelative, double minAbsolute, double minRelative) {
+        this.name = name;
+        this.maxAbsolute = maxAbsolute;
+        this.maxRelative = maxRelative;
+        this.minAbsolute = minAbsolute;
+        this.minRelative = minRelative;
+    }
+
+    /**
+     * Creates a copy of the given category for a compiled configuration. The relations to other categories are added
+     * once all categories have been copied, see {@link #freeze(Category, Function)}.
+     */
+    Category(Category source, int id) {
+        this.name = source.name;
+        this.maxAbsolute = source.maxAbsolute;
+        this.maxRelative = source.maxRelative;
+        this.minAbsolute = source.minAbsolute;
+        this.minRelative = source.minRelative;
+        this.id = id;
+    }
+
+    void freeze(Category source, Function<Category, Category> categoryCopies) {
+        this.synergies = Collections.unmodifiableList(source.synergies.stream().map(categoryCopies).collect(Collectors.toList()));
+        this.antisynergy = Collections.unmodifiableList(source.antisynergy.stream().map(categoryCopies).collect(Collectors.toList()));
+        updateCategoryMasks();
+        synergyMask.freeze();
+        antisynergyMask.freeze();
+        this.frozen = true;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Category [" + name + "] is part of a compiled configuration and cannot be modified");
+        }
+    }
+
     public String getName() {
         return name;
     }
 
     public void setName(String name) {
+        checkNotFrozen();
         this.name = name;
     }
 
+    /**
+     * @return The dense id that a compiled configuration assigned to this category, or <code>-1</code> if the category
+     * is not part of a compiled configuration.
+     */
+    public int getId() {
+        return id;
+    }
+
     public double getMaxAbsolute() {
         return maxAbsolute;
     }
 
     public void setMaxAbsolute(double maxAbsolute) {
+        checkNotFrozen();
         this.maxAbsolute = maxAbsolute;
     }
 
@@ -68,6 +122,7 @@ public class Category {
     }
 
     public void setMaxRelative(double maxRelative) {
+        checkNotFrozen();
         this.maxRelative = maxRelative;
     }
 
@@ -76,6 +131,7 @@ public class Category {
     }
 
     public void setMinAbsolute(double minAbsolute) {
+        checkNotFrozen();
         this.minAbsolute = minAbsolute;
     }
 
@@ -84,6 +140,7 @@ public class Category {
     }
 
     public void setMinRelative(double minRelative) {
+        checkNotFrozen();
         this.minRelative = minRelative;
     }
 
@@ -95,6 +152,19 @@ public class Category {
         return antisynergy;
     }
 
+    public CategoryMask getSynergyMask() {
+        return synergyMask;
+    }
+
+    public CategoryMask getAntisynergyMask() {
+        return antisynergyMask;
+    }
+
+    void updateCategoryMasks() {
+        synergyMask = new CategoryMask(synergies);
+        antisynergyMask = new CategoryMask(antisynergy);
+    }
+
     public static boolean validate(Map<String, Object> optionMap) {
         BingoConfiguration.validateContained(optionMap, BingoConfiguration.KEY_CATEGORY_CATEGORIES, true, List.class);
         BingoConfiguration.validateContained(optionMap, BingoConfiguration.KEY_CATEGORY_MAX, false, Map.class);
@@ -115,20 +185,13 @@ public class Category {
     }
 
     public static void createCategories(List<String> categories, List<Category> knownCategories, List<Category> addTo, String forWhat) {
-        for (String category : categories) {
-            if (getCategory(category, knownCategories) == null) {
-                LOG.warn("Creating category [{}] on [{}]", category, forWhat);
-                Category cat = new Category(category);
-                knownCategories.add(cat);
-                addTo.add(cat);
-            } else {
-                addTo.add(getCategory(category, knownCategories));
-            }
-        }
+        createCategories(categories, new CategoryRegistry(knownCategories), addTo, forWhat);
     }
 
-    private static Category getCategory(String category, List<Category> knownCategories) {
-        return knownCategories.stream().filter(c -> c.getName().equals(category)).findFirst().orElse(null);
+    public static void createCategories(List<String> categories, CategoryRegistry knownCategories, List<Category> addTo, String forWhat) {
+        for (String category : categories) {
+            addTo.add(knownCategories.getOrCreate(category, forWhat));
+        }
     }
 
     @Override
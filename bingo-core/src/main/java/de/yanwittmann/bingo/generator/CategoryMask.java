@@ -0,0 +1,196 @@
+package de.yanwittmann.bingo.generator;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A set of categories stored as bits, using the ids that the categories have been assigned by their configuration.<br>
+ * Categories without an id cannot be stored in a mask and are ignored.<br>
+ * The masks of the objects of a compiled configuration are {@link #freeze() frozen}, as they are shared between all
+ * threads that generate boards. Use {@link #copy()} to get a mask that can be modified.
+ */
+public class CategoryMask {
+
+    private long[] words;
+    private boolean frozen = false;
+
+    public CategoryMask() {
+        this.words = new long[1];
+    }
+
+    public CategoryMask(Collection<Category> categories) {
+        this();
+        for (Category category : categories) {
+            add(category);
+        }
+    }
+
+    private CategoryMask(long[] words) {
+        this.words = words;
+    }
+
+    public void add(Category category) {
+        if (category != null) add(category.getId());
+    }
+
+    public void add(int id) {
+        checkNotFrozen();
+        if (id < 0) return;
+        int word = id >>> 6;
+        if (word >= words.length) {
+            words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+        }
+        words[word] |= 1L << id;
+    }
+
+    public void remove(Category category) {
+        if (category != null) remove(category.getId());
+    }
+
+    public void remove(int id) {
+        checkNotFrozen();
+        if (id < 0) return;
+        int word = id >>> 6;
+        if (word < words.length) {
+            words[word] &= ~(1L << id);
+        }
+    }
+
+    public boolean contains(Category category) {
+        return category != null && contains(category.getId());
+    }
+
+    public boolean contains(int id) {
+        if (id < 0) return false;
+        int word = id >>> 6;
+        return word < words.length && (words[word] & (1L << id)) != 0;
+    }
+
+    public void addAll(CategoryMask other) {
+        checkNotFrozen();
+        if (other.words.length > words.length) {
+            words = Arrays.copyOf(words, other.words.length);
+        }
+        for (int i = 0; i < other.words.length; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    /**
+     * Replaces the categories of this mask with the ones of the other mask, without creating a new mask.
+     */
+    public void set(CategoryMask other) {
+        checkNotFrozen();
+        if (other.words.length > words.length) {
+            words = new long[other.words.length];
+        }
+        System.arraycopy(other.words, 0, words, 0, other.words.length);
+        Arrays.fill(words, other.words.length, words.length, 0);
+    }
+
+    public void retainAll(CategoryMask other) {
+        checkNotFrozen();
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= i < other.words.length ? other.words[i] : 0;
+        }
+    }
+
+    public boolean intersects(CategoryMask other) {
+        int length = Math.min(words.length, other.words.length);
+        for (int i = 0; i < length; i++) {
+            if ((words[i] & other.words[i]) != 0) return true;
+        }
+        return false;
+    }
+
+    public boolean containsAll(CategoryMask other) {
+        for (int i = 0; i < other.words.length; i++) {
+            long word = i < words.length ? words[i] : 0;
+            if ((other.words[i] & ~word) != 0) return false;
+        }
+        return true;
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) return false;
+        }
+        return true;
+    }
+
+    public void clear() {
+        checkNotFrozen();
+        Arrays.fill(words, 0);
+    }
+
+    /**
+     * @return The index of the next set bit starting at the given index, or <code>-1</code> if there is none.
+     */
+    public int nextSetBit(int fromIndex) {
+        int word = fromIndex >>> 6;
+        if (word >= words.length) return -1;
+        long current = words[word] & (-1L << fromIndex);
+        while (true) {
+            if (current != 0) return (word << 6) + Long.numberOfTrailingZeros(current);
+            if (++word == words.length) return -1;
+            current = words[word];
+        }
+    }
+
+    /**
+     * @return A modifiable copy of this mask, even if this mask is frozen.
+     */
+    public CategoryMask copy() {
+        return new CategoryMask(words.clone());
+    }
+
+    /**
+     * Prevents any further modification of this mask.
+     *
+     * @return This mask.
+     */
+    CategoryMask freeze() {
+        this.frozen = true;
+        return this;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Category mask " + this + " is part of a compiled configuration and cannot be modified");
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CategoryMask that = (CategoryMask) o;
+        int length = Math.max(words.length, that.words.length);
+        for (int i = 0; i < length; i++) {
+            long word = i < words.length ? words[i] : 0;
+            long thatWord = i < that.words.length ? that.words[i] : 0;
+            if (word != thatWord) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // trailing empty words must not change the hash, as they do not change equality
+        long hash = 1234;
+        for (int i = words.length; --i >= 0; ) {
+            hash ^= words[i] * (i + 1);
+        }
+        return (int) ((hash >> 32) ^ hash);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(i);
+        }
+        return sb.append("}").toString();
+    }
+}
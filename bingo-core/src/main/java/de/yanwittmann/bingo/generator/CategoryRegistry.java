@@ -0,0 +1,77 @@
+package de.yanwittmann.bingo.generator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Interns categories by their name, so that every name is only represented by one {@link Category} object.<br>
+ * A configuration uses its own registry while it is parsed, the categories are added to the list of categories of the
+ * configuration in the order they are created. Boards that are loaded from JSON use their own registry by default,
+ * boards that are loaded with the same registry share their category objects.
+ */
+public final class CategoryRegistry {
+
+    private final static Logger LOG = LoggerFactory.getLogger(CategoryRegistry.class);
+
+    private final Map<String, Category> categoriesByName = new HashMap<>();
+    private final List<Category> categories;
+
+    public CategoryRegistry() {
+        this(new ArrayList<>());
+    }
+
+    /**
+     * Creates a registry that adds new categories to the given list. If the list already contains several categories
+     * with the same name, the first one is used.
+     */
+    public CategoryRegistry(List<Category> categories) {
+        this.categories = categories;
+        for (Category category : categories) {
+            categoriesByName.putIfAbsent(category.getName(), category);
+        }
+    }
+
+    public Category get(String name) {
+        return categoriesByName.get(name);
+    }
+
+    public Category getOrCreate(String name) {
+        return categoriesByName.computeIfAbsent(name, n -> {
+            Category category = new Category(n);
+            categories.add(category);
+            return category;
+        });
+    }
+
+    /**
+     * Looks up the given category, or creates it and logs a warning that a category was referenced that has not been
+     * declared.
+     */
+    Category getOrCreate(String name, String forWhat) {
+        Category category = categoriesByName.get(name);
+        if (category == null) {
+            LOG.warn("Creating category [{}] on [{}]", name, forWhat);
+            category = getOrCreate(name);
+        }
+        return category;
+    }
+
+    /**
+     * Adds a category to the registry. If a category with the same name is already registered, the category is still
+     * added to the list of categories, but the lookup keeps returning the existing one.
+     */
+    public void register(Category category) {
+        categories.add(category);
+        categoriesByName.putIfAbsent(category.getName(), category);
+    }
+
+    public List<Category> getCategories() {
+        return Collections.unmodifiableList(categories);
+    }
+
+    public int size() {
+        return categoriesByName.size();
+    }
+}
@@ -0,0 +1,92 @@
+package de.yanwittmann.bingo.generator;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A dense category &times; category matrix of the points a board row gets for containing two related categories.<br>
+ * A synergy is worth {@link #SYNERGY_WEIGHT} and an antisynergy {@link #ANTISYNERGY_WEIGHT}. For every category the
+ * categories it has a relation with are also stored as a bit mask, so that only the present relations of a row have to
+ * be looked at.
+ */
+public final class CategoryRelations {
+
+    public final static int SYNERGY_WEIGHT = 4;
+    public final static int ANTISYNERGY_WEIGHT = -10;
+
+    private final Map<Category, Integer> ids = new HashMap<>();
+    private final int size;
+    private final int words;
+    private final int[] weights;
+    private final long[] relationMasks;
+
+    /**
+     * @param categories The categories whose relations are scored. A category has the id of its index in this list,
+     *                   categories that are only referenced as a synergy or antisynergy are added after them.
+     */
+    public CategoryRelations(List<Category> categories) {
+        for (Category category : categories) {
+            idOf(category);
+        }
+        for (Category category : categories) {
+            category.getSynergies().forEach(this::idOf);
+            category.getAntisynergy().forEach(this::idOf);
+        }
+        this.size = ids.size();
+        this.words = Math.max(1, (size + 63) >>> 6);
+        this.weights = new int[size * size];
+        this.relationMasks = new long[size * words];
+
+        // every entry of the list scores its relations, so duplicate entries or relations count multiple times
+        for (Category category : categories) {
+            int id = ids.get(category);
+            for (Category synergy : category.getSynergies()) {
+                weights[id * size + ids.get(synergy)] += SYNERGY_WEIGHT;
+            }
+            for (Category antisynergy : category.getAntisynergy()) {
+                weights[id * size + ids.get(antisynergy)] += ANTISYNERGY_WEIGHT;
+            }
+        }
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                if (weights[from * size + to] != 0) {
+                    relationMasks[from * words + (to >>> 6)] |= 1L << to;
+                }
+            }
+        }
+    }
+
+    private void idOf(Category category) {
+        ids.putIfAbsent(category, ids.size());
+    }
+
+    /**
+     * @return The id of the category in this matrix, or <code>-1</code> if it has no relations to be scored.
+     */
+    public int getId(Category category) {
+        return ids.getOrDefault(category, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The amount of <code>long</code> words needed to store a mask of all categories.
+     */
+    public int getWords() {
+        return words;
+    }
+
+    public int getWeight(int from, int to) {
+        return weights[from * size + to];
+    }
+
+    /**
+     * @return A word of the mask of all categories that <code>from</code> has a relation with.
+     */
+    public long getRelationMask(int from, int word) {
+        return relationMasks[from * words + word];
+    }
+}
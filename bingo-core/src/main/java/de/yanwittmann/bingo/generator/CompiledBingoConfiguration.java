@@ -0,0 +1,589 @@
+package de.yanwittmann.bingo.generator;
+
+import de.yanwittmann.bingo.BingoTile;
+import de.yanwittmann.bingo.interfaces.RandomSource;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * An immutable snapshot of a {@link BingoConfiguration} that tiles are generated from.<br>
+ * All categories, tile generators and text snippets are frozen copies of the ones in the configuration, so a snapshot
+ * can be shared between threads and is not affected by later changes to the configuration. The templates, samplers and
+ * category masks are prepared once when the snapshot is created.
+ */
+public final class CompiledBingoConfiguration {
+
+    private final BingoBoardMetadata boardMetadata;
+    private final List<Category> categories;
+    private final List<Difficulty> difficulties;
+    private final List<TileGenerator> tileGenerators;
+    private final Map<String, List<TextSnippet>> textSnippets;
+    private final Map<String, ValueProvider> numberValueProviders;
+    private final CategoryRelations categoryRelations;
+    private final Map<String, Integer> tagIds = new HashMap<>();
+
+    private final WeightedSampler<TileGenerator> tileGeneratorSampler;
+    private final Map<Difficulty, WeightedSampler<TileGenerator>> tileGeneratorSamplersByDifficulty = new HashMap<>();
+    private final Map<WeightedSampler<TileGenerator>, CategoryMask> tileGeneratorCategories = new IdentityHashMap<>();
+    private final BoundedCache<TileGeneratorFilterKey, FilteredTileGenerators> filteredTileGeneratorSamplers = new BoundedCache<>(FILTER_CACHE_SIZE);
+    private final BoundedCache<SnippetFilterKey, WeightedSampler<TextSnippet>> filteredTextSnippetSamplers = new BoundedCache<>(FILTER_CACHE_SIZE);
+    private final ThreadLocal<GenerationScratch> scratch = ThreadLocal.withInitial(GenerationScratch::new);
+
+    CompiledBingoConfiguration(BingoConfiguration source) {
+        this.boardMetadata = source.getBoardMetadata();
+        this.difficulties = Collections.unmodifiableList(new ArrayList<>(source.getDifficulties()));
+        this.numberValueProviders = Collections.unmodifiableMap(new HashMap<>(source.getValueProviders()));
+
+        // dense ids allow category sets to be stored as bit masks
+        List<Category> categories = new ArrayList<>();
+        Map<Category, Category> categoryCopies = new IdentityHashMap<>();
+        for (Category category : source.getCategories()) {
+            copyCategory(category, categories, categoryCopies);
+        }
+        List<Category> sourceCategories = new ArrayList<>(source.getCategories());
+        // categories that are only referenced by other elements are added to the end
+        Function<Category, Category> categoryCopy = category -> {
+            Category copy = categoryCopies.get(category);
+            if (copy == null) {
+                copy = copyCategory(category, categories, categoryCopies);
+                sourceCategories.add(category);
+            }
+            return copy;
+        };
+
+        List<TileGenerator> tileGenerators = new ArrayList<>();
+        for (TileGenerator tileGenerator : source.getTileGenerators()) {
+            tileGenerators.add(new TileGenerator(tileGenerator, categoryCopy));
+        }
+        Map<String, List<TextSnippet>> textSnippets = new HashMap<>();
+        for (Map.Entry<String, List<TextSnippet>> entry : source.getTextSnippets().entrySet()) {
+            List<TextSnippet> snippets = new ArrayList<>();
+            for (TextSnippet textSnippet : entry.getValue()) {
+                snippets.add(new TextSnippet(textSnippet, categoryCopy));
+            }
+            textSnippets.put(entry.getKey(), Collections.unmodifiableList(snippets));
+        }
+        for (int i = 0; i < sourceCategories.size(); i++) {
+            categories.get(i).freeze(sourceCategories.get(i), categoryCopy);
+        }
+        this.categories = Collections.unmodifiableList(categories);
+        this.tileGenerators = Collections.unmodifiableList(tileGenerators);
+        this.textSnippets = Collections.unmodifiableMap(textSnippets);
+        this.categoryRelations = new CategoryRelations(this.categories);
+
+        // tags are only compared by their id from now on
+        for (List<TextSnippet> snippets : textSnippets.values()) {
+            for (TextSnippet textSnippet : snippets) {
+                BitSet tagMask = new BitSet();
+                for (Object tag : textSnippet.getTags()) {
+                    tagMask.set(tagIds.computeIfAbsent(String.valueOf(tag), k -> tagIds.size()));
+                }
+                textSnippet.setTagMask(tagMask);
+            }
+        }
+
+        // placeholders can only be resolved once all snippet types and value providers are known
+        Map<List<List<String>>, SnippetSelector> selectors = new HashMap<>();
+        for (TileGenerator tileGenerator : tileGenerators) {
+            tileGenerator.setTemplate(compileTemplate(tileGenerator.getText(), selectors));
+        }
+        for (List<TextSnippet> snippets : textSnippets.values()) {
+            for (TextSnippet textSnippet : snippets) {
+                textSnippet.setTemplate(compileTemplate(textSnippet.getText(), selectors));
+            }
+        }
+
+        Map<Difficulty, List<TileGenerator>> tileGeneratorsByDifficulty = new HashMap<>();
+        for (TileGenerator tileGenerator : tileGenerators) {
+            if (tileGenerator.getDifficulties().isEmpty()) {
+                for (Difficulty difficulty : difficulties) {
+                    tileGeneratorsByDifficulty.computeIfAbsent(difficulty, k -> new ArrayList<>()).add(tileGenerator);
+                }
+            } else {
+                for (String difficulty : tileGenerator.getDifficulties()) {
+                    tileGeneratorsByDifficulty.computeIfAbsent(getDifficulty(difficulty), k -> new ArrayList<>()).add(tileGenerator);
+                }
+            }
+        }
+
+        this.tileGeneratorSampler = new WeightedSampler<>(tileGenerators);
+        for (Map.Entry<Difficulty, List<TileGenerator>> entry : tileGeneratorsByDifficulty.entrySet()) {
+            tileGeneratorSamplersByDifficulty.put(entry.getKey(), new WeightedSampler<>(entry.getValue()));
+        }
+        // only these categories can change which generators are filtered out, the other ones are left out of the cache keys
+        tileGeneratorCategories.put(tileGeneratorSampler, collectCategories(tileGeneratorSampler));
+        for (WeightedSampler<TileGenerator> sampler : tileGeneratorSamplersByDifficulty.values()) {
+            tileGeneratorCategories.put(sampler, collectCategories(sampler));
+        }
+    }
+
+    private static CategoryMask collectCategories(WeightedSampler<TileGenerator> sampler) {
+        CategoryMask categories = new CategoryMask();
+        for (TileGenerator tileGenerator : sampler.getElements()) {
+            categories.addAll(tileGenerator.getCategoryMask());
+            categories.addAll(tileGenerator.getDerivedCategoryMask());
+        }
+        return categories;
+    }
+
+    /**
+     * Compiles the text and resolves the snippets and conditions of each placeholder, placeholders with the same snippet
+     * types and conditions share their selector.
+     */
+    private TextTemplate compileTemplate(String text, Map<List<List<String>>, SnippetSelector> selectors) {
+        TextTemplate template = TextTemplate.compile(text, textSnippets, numberValueProviders);
+        for (TextTemplate.Node node : template.getNodes()) {
+            if (node instanceof TextTemplate.SnippetNode) {
+                TextTemplate.SnippetNode snippetNode = (TextTemplate.SnippetNode) node;
+                snippetNode.setSelector(selectors.computeIfAbsent(Arrays.asList(snippetNode.getSnippetTypes(), snippetNode.getConditions()),
+                        key -> new SnippetSelector(snippetNode.getSnippetTypes(), compileConditions(snippetNode.getConditions()), textSnippets)));
+            }
+        }
+        return template;
+    }
+
+    private List<SnippetCondition> compileConditions(List<String> conditions) {
+        List<SnippetCondition> compiled = new ArrayList<>(conditions.size());
+        for (String condition : conditions) {
+            compiled.add(SnippetCondition.parse(condition, tagIds, categories));
+        }
+        return compiled;
+    }
+
+    private static Category copyCategory(Category category, List<Category> categories, Map<Category, Category> categoryCopies) {
+        Category copy = new Category(category, categories.size());
+        categories.add(copy);
+        categoryCopies.put(category, copy);
+        return copy;
+    }
+
+    public BingoBoardMetadata getBoardMetadata() {
+        return boardMetadata;
+    }
+
+    public List<TileGenerator> getTileGenerators() {
+        return tileGenerators;
+    }
+
+    public Map<String, List<TextSnippet>> getTextSnippets() {
+        return textSnippets;
+    }
+
+    public List<Category> getCategories() {
+        return categories;
+    }
+
+    public List<Difficulty> getDifficulties() {
+        return difficulties;
+    }
+
+    public Map<String, ValueProvider> getValueProviders() {
+        return numberValueProviders;
+    }
+
+    /**
+     * @return The synergy and antisynergy weights between the categories, used to score the layout of a board.
+     */
+    public CategoryRelations getCategoryRelations() {
+        return categoryRelations;
+    }
+
+    public double getDifficultyForLevel(int level) {
+        if (difficulties.isEmpty()) return 1.0;
+        if (difficulties.size() < level) level = difficulties.size();
+        return difficulties.get(level - 1).getScore();
+    }
+
+    public double getDifficultyForLevel(String level) {
+        return difficulties.stream().filter(d -> d.getName().equalsIgnoreCase(level)).findFirst().map(Difficulty::getScore).orElse(1.0);
+    }
+
+    public Difficulty getDifficulty(double difficulty) {
+        double closestDifficulty = Double.MAX_VALUE;
+        Difficulty closestDifficultyDifficulty = null;
+        for (Difficulty difficultyDifficulty : difficulties) {
+            double currentDifficulty = Math.abs(difficultyDifficulty.getScore() - difficulty);
+            if (currentDifficulty < closestDifficulty) {
+                closestDifficulty = currentDifficulty;
+                closestDifficultyDifficulty = difficultyDifficulty;
+            }
+        }
+        return closestDifficultyDifficulty;
+    }
+
+    public Difficulty getDifficulty(String difficulty) {
+        for (Difficulty difficultyDifficulty : difficulties) {
+            if (difficultyDifficulty.getName().equals(difficulty)) {
+                return difficultyDifficulty;
+            }
+        }
+        return null;
+    }
+
+    public Map<Category, Integer> countCategories(List<BingoTile> tiles) {
+        Map<Category, Integer> counts = new HashMap<>();
+        for (BingoTile tile : tiles) {
+            for (Category category : tile.getCategories()) {
+                counts.compute(category, (k, v) -> v == null ? 1 : v + 1);
+            }
+        }
+        for (Category category : categories) {
+            counts.putIfAbsent(category, 0);
+        }
+        return counts;
+    }
+
+    public BingoTile generateTile(List<BingoTile> existingTiles, int destAmount, double destinationDifficulty, Random random) {
+        return generateTile(existingTiles, destAmount, destinationDifficulty, RandomSource.of(random));
+    }
+
+    public BingoTile generateTile(List<BingoTile> existingTiles, int destAmount, double destinationDifficulty, RandomSource random) {
+        return generateTile(new GenerationContext(categories, destAmount, existingTiles), destinationDifficulty, random);
+    }
+
+    public BingoTile generateTile(GenerationContext context, double destinationDifficulty, Random random) {
+        return generateTile(context, destinationDifficulty, RandomSource.of(random));
+    }
+
+    public BingoTile generateTile(GenerationContext context, double destinationDifficulty, RandomSource random) {
+        return generateTile(context, destinationDifficulty, random, GenerationListener.NONE);
+    }
+
+    /**
+     * @param listener Is notified about the generated tile and the fallbacks that were needed to generate it.
+     */
+    public BingoTile generateTile(GenerationContext context, double destinationDifficulty, RandomSource random, GenerationListener listener) {
+        Object event = GenerationEvents.get().beginTile();
+        Difficulty destDiff = destinationDifficulty != -1 ? getDifficulty(destinationDifficulty) : null;
+        WeightedSampler<TileGenerator> allowedTileGeneratorSampler = getTileGeneratorSampler(destDiff);
+        if (destinationDifficulty != -1 && allowedTileGeneratorSampler == tileGeneratorSampler) {
+            listener.onGeneratorFallback(GeneratorFallback.DIFFICULTY, destinationDifficulty);
+        }
+
+        // the context keeps track of what categories are allowed and not allowed in the existing tiles
+        CategoryMask createdMustBeCategories = context.getMustBeCategoryMask();
+        CategoryMask createdMayNotBeCategories = context.getMayNotBeCategoryMask();
+
+        GenerationScratch scratch = this.scratch.get();
+        TileGenerator selectedGenerator = getFilteredTileGeneratorSampler(scratch, destDiff, allowedTileGeneratorSampler, createdMustBeCategories, createdMayNotBeCategories).sample(random);
+        if (scratch.categoriesIgnored) {
+            listener.onGeneratorFallback(GeneratorFallback.CATEGORIES, destinationDifficulty);
+        }
+        TextTemplate template = selectedGenerator.getTemplate();
+
+        // the attempts are expanded into the current expansion, which is swapped with the best one when it is closer
+        TileExpansion best = null;
+        double currentClosestDifficulty = Double.MAX_VALUE;
+        int repeatCount = 0;
+        int maxAttempts = destinationDifficulty == -1 ? 1 : 3;
+        for (int i = 0; i < maxAttempts; i++) { // try finding a better tile 3 times
+            TileExpansion expansion = scratch.current.reset(selectedGenerator.getDifficulty());
+            insertSnippets(scratch, template, expansion, createdMustBeCategories, createdMayNotBeCategories, destinationDifficulty, random);
+
+            if (destinationDifficulty != -1) {
+                if (repeatCount < 40) {
+                    if (hasAntisynergies(expansion, selectedGenerator) || context.containsText(expansion.text)) {
+                        repeatCount++;
+                        i--;
+                        continue;
+                    }
+                }
+            }
+            double currentDistance = Math.abs(expansion.difficulty - destinationDifficulty);
+            double currentClosestDistance = Math.abs(currentClosestDifficulty - destinationDifficulty);
+            if (currentDistance < currentClosestDistance) {
+                currentClosestDifficulty = expansion.difficulty;
+                scratch.current = scratch.best;
+                scratch.best = best = expansion;
+            }
+        }
+
+        String text = selectedGenerator.getText();
+        String tooltip = selectedGenerator.getTooltip();
+        if (best != null) {
+            text = best.text.toString();
+            currentClosestDifficulty -= selectedGenerator.getDifficulty();
+            if (best.tooltips.length() > 0) {
+                tooltip = tooltip == null ? best.tooltips.toString() : tooltip + "\n" + best.tooltips;
+            }
+        }
+
+        BingoTile bingoTile = new BingoTile(text, tooltip == null ? "" : tooltip, currentClosestDifficulty + selectedGenerator.getDifficulty());
+        List<Category> generatorCategories = selectedGenerator.getCategories();
+        for (int i = 0; i < generatorCategories.size(); i++) {
+            bingoTile.addCategory(generatorCategories.get(i));
+        }
+        if (best != null) {
+            for (int i = 0; i < best.categories.size(); i++) {
+                bingoTile.addCategory(best.categories.get(i));
+            }
+        }
+        listener.onTileGenerated(bingoTile, repeatCount);
+        GenerationEvents.get().commitTile(event, destinationDifficulty, GenerationEvents.getTitle(boardMetadata), repeatCount, bingoTile.getDifficulty());
+        return bingoTile;
+    }
+
+    private boolean hasAntisynergies(TileExpansion expansion, TileGenerator tileGenerator) {
+        return expansion.antisynergyMask.intersects(tileGenerator.getCategoryMask()) || tileGenerator.getAntisynergyMask().intersects(expansion.categoryMask);
+    }
+
+    private void insertSnippets(GenerationScratch scratch, TextTemplate template, TileExpansion expansion,
+                                CategoryMask createdMustBeCategories, CategoryMask createdMayNotBeCategories,
+                                double destinationDifficulty, RandomSource random) {
+        List<TextTemplate.Node> nodes = template.getNodes();
+        for (int i = 0; i < nodes.size(); i++) {
+            TextTemplate.Node node = nodes.get(i);
+            if (node instanceof TextTemplate.LiteralNode) {
+                expansion.text.append(((TextTemplate.LiteralNode) node).getText());
+
+            } else if (node instanceof TextTemplate.SnippetNode) {
+                TextTemplate.SnippetNode snippetNode = (TextTemplate.SnippetNode) node;
+                TextSnippet selectedSnippet = selectTextSnippet(scratch, snippetNode, createdMustBeCategories, createdMayNotBeCategories, expansion.text, random);
+
+                expansion.difficulty += selectedSnippet.getDifficulty();
+                expansion.addCategories(selectedSnippet);
+                if (selectedSnippet.getTooltip() != null) expansion.addTooltip(selectedSnippet.getTooltip());
+                insertSnippets(scratch, selectedSnippet.getTemplate(), expansion, createdMustBeCategories, createdMayNotBeCategories, destinationDifficulty, random);
+
+            } else if (node instanceof TextTemplate.ValueProviderNode) {
+                TextTemplate.ValueProviderNode valueProviderNode = (TextTemplate.ValueProviderNode) node;
+                Difficulty difficulty = getDifficulty(destinationDifficulty);
+                ValueProvider.NumberProvider provider = valueProviderNode.getValueProvider().getProvider(difficulty.getName());
+                if (provider != null) {
+                    expansion.text.append(provider.nextValue(random));
+                    expansion.difficulty += provider.getScore();
+                } else {
+                    expansion.text.append(valueProviderNode.getPlaceholder());
+                }
+
+            } else if (node instanceof TextTemplate.RangeNode) {
+                TextTemplate.RangeNode rangeNode = (TextTemplate.RangeNode) node;
+                expansion.text.append(random.nextInt(rangeNode.getMax() - rangeNode.getMin() + 1) + rangeNode.getMin());
+            }
+        }
+    }
+
+    private WeightedSampler<TileGenerator> getTileGeneratorSampler(Difficulty difficulty) {
+        if (difficulty == null) return tileGeneratorSampler;
+        WeightedSampler<TileGenerator> sampler = tileGeneratorSamplersByDifficulty.get(difficulty);
+        if (sampler == null || sampler.isEmpty()) return tileGeneratorSampler;
+        return sampler;
+    }
+
+    /**
+     * The generators by difficulty already only contain generators that are allowed for that difficulty, so the
+     * candidates only depend on the category constraints. The same constraints occur many times while generating a
+     * board, which is why the filtered candidates are cached. Constraints on categories that none of the generators
+     * has do not change the result, so they are removed before the cache is checked.<br>
+     * Whether the constraints had to be ignored because no generator matches them is stored in the scratch space.
+     */
+    private WeightedSampler<TileGenerator> getFilteredTileGeneratorSampler(GenerationScratch scratch, Difficulty difficulty, WeightedSampler<TileGenerator> allowedTileGeneratorSampler,
+                                                                           CategoryMask createdMustBeCategories, CategoryMask createdMayNotBeCategories) {
+        CategoryMask reachableCategories = tileGeneratorCategories.get(allowedTileGeneratorSampler);
+        if (!createdMustBeCategories.isEmpty() && !createdMustBeCategories.intersects(reachableCategories)) {
+            // every generator would be filtered out
+            scratch.categoriesIgnored = true;
+            return allowedTileGeneratorSampler;
+        }
+        scratch.categoriesIgnored = false;
+        createdMustBeCategories = scratch.restrict(scratch.mustBeCategories, createdMustBeCategories, reachableCategories);
+        createdMayNotBeCategories = scratch.restrict(scratch.mayNotBeCategories, createdMayNotBeCategories, reachableCategories);
+        if (createdMustBeCategories.isEmpty() && createdMayNotBeCategories.isEmpty()) {
+            return allowedTileGeneratorSampler;
+        }
+
+        FilteredTileGenerators cached = filteredTileGeneratorSamplers.get(scratch.tileGeneratorKey.set(difficulty, createdMustBeCategories, createdMayNotBeCategories));
+        if (cached != null) {
+            scratch.categoriesIgnored = cached.categoriesIgnored;
+            return cached.sampler;
+        }
+
+        List<TileGenerator> filteredTileGenerators = new ArrayList<>();
+        for (TileGenerator tileGenerator : allowedTileGeneratorSampler.getElements()) {
+            // remove all tile generators that do not match the must-be categories
+            if (!createdMustBeCategories.isEmpty() && !tileGenerator.containsAnyCategory(createdMustBeCategories) && !tileGenerator.containsAnyDerivedCategory(createdMustBeCategories)) {
+                continue;
+            }
+            // remove all tile generators that match the may-not-be categories
+            if (!createdMayNotBeCategories.isEmpty() && tileGenerator.containsAnyCategory(createdMayNotBeCategories)) {
+                continue;
+            }
+            filteredTileGenerators.add(tileGenerator);
+        }
+
+        WeightedSampler<TileGenerator> sampler;
+        if (filteredTileGenerators.isEmpty() || filteredTileGenerators.size() == allowedTileGeneratorSampler.size()) {
+            // nothing has been filtered out or nothing is left, draw from the prepared sampler
+            scratch.categoriesIgnored = filteredTileGenerators.isEmpty();
+            sampler = allowedTileGeneratorSampler;
+        } else {
+            sampler = new WeightedSampler<>(filteredTileGenerators);
+        }
+        filteredTileGeneratorSamplers.put(new TileGeneratorFilterKey().set(difficulty, createdMustBeCategories.copy(), createdMayNotBeCategories.copy()),
+                new FilteredTileGenerators(sampler, scratch.categoriesIgnored));
+        return sampler;
+    }
+
+    private TextSnippet selectTextSnippet(GenerationScratch scratch, TextTemplate.SnippetNode snippetNode,
+                                          CategoryMask createdMustBeCategories, CategoryMask createdMayNotBeCategories,
+                                          CharSequence textSoFar, RandomSource random) {
+        SnippetSelector selector = snippetNode.getSelector();
+        if (selector.isTextDependent()) {
+            List<TextSnippet> candidates = selector.getCandidates(textSoFar, scratch.matchingSnippets);
+            return WeightedSampler.sample(filterByCategories(scratch, candidates, createdMustBeCategories, createdMayNotBeCategories), random);
+        }
+
+        // the candidates only depend on the placeholder and the category constraints, so they can be reused
+        CategoryMask candidateCategories = selector.getCandidateCategories();
+        if (candidateCategories.containsAll(createdMustBeCategories)) {
+            createdMustBeCategories = scratch.restrict(scratch.mustBeCategories, createdMustBeCategories, candidateCategories);
+        } else {
+            // no candidate has all of the categories, so the constraint is ignored
+            scratch.mustBeCategories.clear();
+            createdMustBeCategories = scratch.mustBeCategories;
+        }
+        createdMayNotBeCategories = scratch.restrict(scratch.mayNotBeCategories, createdMayNotBeCategories, candidateCategories);
+        if (createdMustBeCategories.isEmpty() && createdMayNotBeCategories.isEmpty()) {
+            return selector.getSampler().sample(random);
+        }
+
+        WeightedSampler<TextSnippet> sampler = filteredTextSnippetSamplers.get(scratch.snippetKey.set(selector, createdMustBeCategories, createdMayNotBeCategories));
+        if (sampler == null) {
+            sampler = new WeightedSampler<>(filterByCategories(scratch, selector.getCandidates(), createdMustBeCategories, createdMayNotBeCategories));
+            filteredTextSnippetSamplers.put(new SnippetFilterKey().set(selector, createdMustBeCategories.copy(), createdMayNotBeCategories.copy()), sampler);
+        }
+        return sampler.sample(random);
+    }
+
+    /**
+     * Filters the snippets into the lists of the scratch space, the result is only valid until the next call.
+     */
+    private List<TextSnippet> filterByCategories(GenerationScratch scratch, List<TextSnippet> snippets,
+                                                 CategoryMask createdMustBeCategories, CategoryMask createdMayNotBeCategories) {
+        List<TextSnippet> limitedSnippets = snippets;
+
+        if (!createdMustBeCategories.isEmpty()) {
+            List<TextSnippet> filteredSnippets = scratch.mustBeSnippets;
+            filteredSnippets.clear();
+            for (int i = 0; i < limitedSnippets.size(); i++) {
+                TextSnippet snippet = limitedSnippets.get(i);
+                if (snippet.getCategoryMask().containsAll(createdMustBeCategories)) filteredSnippets.add(snippet);
+            }
+            if (filteredSnippets.size() == 0) {
+                //LOG.warn("No snippets found for type {} with must-be categories {}", snippetTypes, createdMustBeCategories);
+            } else {
+                limitedSnippets = filteredSnippets;
+            }
+        }
+
+        if (!createdMayNotBeCategories.isEmpty()) {
+            List<TextSnippet> filteredSnippets = scratch.mayNotBeSnippets;
+            filteredSnippets.clear();
+            for (int i = 0; i < limitedSnippets.size(); i++) {
+                TextSnippet snippet = limitedSnippets.get(i);
+                if (!snippet.getCategoryMask().intersects(createdMayNotBeCategories)) filteredSnippets.add(snippet);
+            }
+            if (filteredSnippets.size() == 0) {
+                //LOG.warn("No snippets found for type {} with may-not categories {}", snippetTypes, createdMayNotBeCategories);
+            } else {
+                limitedSnippets = filteredSnippets;
+            }
+        }
+
+        return limitedSnippets;
+    }
+
+    /**
+     * The objects that are reused for every tile a thread generates, so that the only objects created for a tile are
+     * the tile itself and its text and tooltip.
+     */
+    private static class GenerationScratch {
+        private TileExpansion current = new TileExpansion();
+        private TileExpansion best = new TileExpansion();
+        private final List<TextSnippet> matchingSnippets = new ArrayList<>();
+        private final List<TextSnippet> mustBeSnippets = new ArrayList<>();
+        private final List<TextSnippet> mayNotBeSnippets = new ArrayList<>();
+        // mutable keys that are only used to look up cached samplers
+        private final TileGeneratorFilterKey tileGeneratorKey = new TileGeneratorFilterKey();
+        private final SnippetFilterKey snippetKey = new SnippetFilterKey();
+        private final CategoryMask mustBeCategories = new CategoryMask();
+        private final CategoryMask mayNotBeCategories = new CategoryMask();
+        // whether the last filtered tile generators ignore the category constraints
+        private boolean categoriesIgnored;
+
+        private CategoryMask restrict(CategoryMask target, CategoryMask categories, CategoryMask allowedCategories) {
+            target.set(categories);
+            target.retainAll(allowedCategories);
+            return target;
+        }
+    }
+
+    private static class FilteredTileGenerators {
+        private final WeightedSampler<TileGenerator> sampler;
+        private final boolean categoriesIgnored;
+
+        private FilteredTileGenerators(WeightedSampler<TileGenerator> sampler, boolean categoriesIgnored) {
+            this.sampler = sampler;
+            this.categoriesIgnored = categoriesIgnored;
+        }
+    }
+
+    /**
+     * Keys that are stored in a cache must not be changed afterwards, only the lookup keys of the
+     * {@link GenerationScratch} are {@link #set set} again.
+     */
+    private static class TileGeneratorFilterKey {
+        private Difficulty difficulty;
+        private CategoryMask mustBeCategories;
+        private CategoryMask mayNotBeCategories;
+
+        private TileGeneratorFilterKey set(Difficulty difficulty, CategoryMask mustBeCategories, CategoryMask mayNotBeCategories) {
+            this.difficulty = difficulty;
+            this.mustBeCategories = mustBeCategories;
+            this.mayNotBeCategories = mayNotBeCategories;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            TileGeneratorFilterKey that = (TileGeneratorFilterKey) o;
+            return difficulty == that.difficulty && mustBeCategories.equals(that.mustBeCategories) && mayNotBeCategories.equals(that.mayNotBeCategories);
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(difficulty) * 31 + mustBeCategories.hashCode()) * 31 + mayNotBeCategories.hashCode();
+        }
+    }
+
+    private static class SnippetFilterKey {
+        private SnippetSelector selector;
+        private CategoryMask mustBeCategories;
+        private CategoryMask mayNotBeCategories;
+
+        private SnippetFilterKey set(SnippetSelector selector, CategoryMask mustBeCategories, CategoryMask mayNotBeCategories) {
+            this.selector = selector;
+            this.mustBeCategories = mustBeCategories;
+            this.mayNotBeCategories = mayNotBeCategories;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            SnippetFilterKey that = (SnippetFilterKey) o;
+            return selector == that.selector && mustBeCategories.equals(that.mustBeCategories) && mayNotBeCategories.equals(that.mayNotBeCategories);
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(selector) * 31 + mustBeCategories.hashCode()) * 31 + mayNotBeCategories.hashCode();
+        }
+    }
+
+    private final static int FILTER_CACHE_SIZE = 4096;
+}
@@ -0,0 +1,307 @@
+package de.yanwittmann.bingo.generator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Stores parsed configurations in a compact binary format, so that loading the same configuration again does not have
+ * to parse the YAML file, look up the categories by name or derive the snippet categories again.<br>
+ * The cache files are named after the SHA-256 hash of the YAML file content, a changed file therefore never uses an
+ * outdated cache file. If a cache file cannot be read, the YAML file is parsed instead and the cache file is replaced.
+ */
+public final class ConfigurationCache {
+
+    private final static Logger LOG = LoggerFactory.getLogger(ConfigurationCache.class);
+
+    private ConfigurationCache() {
+    }
+
+    /**
+     * Loads the configuration from the cache directory if it contains a cache file for the current content of the
+     * configuration file, otherwise parses the configuration file and writes a new cache file.
+     *
+     * @param configurationFile The YAML configuration file.
+     * @param cacheDirectory    The directory to store the cache files in, or <code>null</code> to not use a cache.
+     * @return The compiled configuration.
+     * @throws IOException If the configuration file cannot be read.
+     */
+    public static BingoConfiguration load(File configurationFile, File cacheDirectory) throws IOException {
+        if (cacheDirectory == null) {
+            return new BingoConfiguration(configurationFile);
+        }
+        byte[] content = Files.readAllBytes(configurationFile.toPath());
+        byte[] hash = hash(content);
+        File cacheFile = new File(cacheDirectory, toHex(hash) + CACHE_FILE_EXTENSION);
+
+        if (cacheFile.isFile()) {
+            try {
+                BingoConfiguration configuration = read(Files.readAllBytes(cacheFile.toPath()), hash);
+                LOG.info("Loaded configuration [{}] from cache [{}]", configurationFile.getName(), cacheFile.getName());
+                return configuration;
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("Could not read cache [{}], parsing [{}] instead: {}", cacheFile, configurationFile.getName(), e.getMessage());
+            }
+        }
+
+        BingoConfiguration configuration = new BingoConfiguration(new ByteArrayInputStream(content));
+        try {
+            write(configuration, hash, cacheFile);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Could not write cache [{}]: {}", cacheFile, e.getMessage());
+        }
+        return configuration;
+    }
+
+    static void write(BingoConfiguration configuration, byte[] hash, File cacheFile) throws IOException {
+        File directory = cacheFile.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create cache directory " + directory);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.write(hash);
+
+            Map<Category, Integer> categoryIds = new IdentityHashMap<>();
+            List<Category> categories = configuration.getCategories();
+            out.writeInt(categories.size());
+            for (Category category : categories) {
+                categoryIds.put(category, categoryIds.size());
+                out.writeUTF(category.getName());
+                out.writeDouble(category.getMaxAbsolute());
+                out.writeDouble(category.getMaxRelative());
+                out.writeDouble(category.getMinAbsolute());
+                out.writeDouble(category.getMinRelative());
+            }
+            for (Category category : categories) {
+                writeCategories(out, category.getSynergies(), categoryIds);
+                writeCategories(out, category.getAntisynergy(), categoryIds);
+            }
+
+            BingoBoardMetadata metadata = configuration.getBoardMetadata();
+            out.writeBoolean(metadata != null);
+            if (metadata != null) {
+                writeNullableString(out, metadata.getTitle());
+                writeNullableString(out, metadata.getGame());
+                writeNullableString(out, metadata.getDescription());
+                writeNullableString(out, metadata.getVersion());
+                writeStrings(out, metadata.getAuthors());
+            }
+
+            out.writeInt(configuration.getTextSnippets().size());
+            for (Map.Entry<String, List<TextSnippet>> entry : configuration.getTextSnippets().entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (TextSnippet snippet : entry.getValue()) {
+                    writeString(out, snippet.getText());
+                    writeNullableString(out, snippet.getTooltip());
+                    out.writeDouble(snippet.getDifficulty());
+                    out.writeDouble(snippet.getWeight());
+                    writeStrings(out, snippet.getTags());
+                    writeCategories(out, snippet.getCategories(), categoryIds);
+                    writeCategories(out, snippet.getDerivedCategories(), categoryIds);
+                }
+            }
+
+            out.writeInt(configuration.getTileGenerators().size());
+            for (TileGenerator tileGenerator : configuration.getTileGenerators()) {
+                writeString(out, tileGenerator.getText());
+                writeNullableString(out, tileGenerator.getTooltip());
+                out.writeDouble(tileGenerator.getDifficulty());
+                out.writeDouble(tileGenerator.getWeight());
+                writeStrings(out, tileGenerator.getDifficulties());
+                writeCategories(out, tileGenerator.getCategories(), categoryIds);
+                writeCategories(out, tileGenerator.getDerivedCategories(), categoryIds);
+            }
+
+            out.writeInt(configuration.getDifficulties().size());
+            for (Difficulty difficulty : configuration.getDifficulties()) {
+                out.writeUTF(difficulty.getName());
+                out.writeDouble(difficulty.getScore());
+            }
+
+            out.writeInt(configuration.getValueProviders().size());
+            for (Map.Entry<String, ValueProvider> entry : configuration.getValueProviders().entrySet()) {
+                out.writeUTF(entry.getKey());
+                Map<String, ValueProvider.NumberProvider> providers = entry.getValue().getDifficultyProviders();
+                out.writeInt(providers.size());
+                for (Map.Entry<String, ValueProvider.NumberProvider> provider : providers.entrySet()) {
+                    out.writeUTF(provider.getKey());
+                    out.writeInt(provider.getValue().getMin());
+                    out.writeInt(provider.getValue().getMax());
+                    out.writeDouble(provider.getValue().getScore());
+                }
+            }
+        }
+
+        // write to a temporary file first so that other processes never read a partially written cache
+        File temporaryFile = File.createTempFile(cacheFile.getName(), ".tmp", directory);
+        try {
+            Files.write(temporaryFile.toPath(), bytes.toByteArray());
+            Files.move(temporaryFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile.toPath());
+        }
+    }
+
+    static BingoConfiguration read(byte[] data, byte[] expectedHash) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unsupported cache format");
+        }
+        byte[] hash = new byte[expectedHash.length];
+        in.readFully(hash);
+        if (!Arrays.equals(hash, expectedHash)) {
+            throw new IOException("Cache belongs to a different configuration");
+        }
+
+        BingoConfiguration configuration = new BingoConfiguration();
+
+        List<Category> categories = configuration.getCategories();
+        int categoryCount = in.readInt();
+        for (int i = 0; i < categoryCount; i++) {
+            categories.add(new Category(in.readUTF(), in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble()));
+        }
+        for (Category category : categories) {
+            readCategories(in, categories, category.getSynergies());
+            readCategories(in, categories, category.getAntisynergy());
+        }
+
+        if (in.readBoolean()) {
+            configuration.setBoardMetadata(new BingoBoardMetadata(readNullableString(in), readNullableString(in), readNullableString(in), readNullableString(in), readStrings(in)));
+        }
+
+        int snippetTypeCount = in.readInt();
+        for (int i = 0; i < snippetTypeCount; i++) {
+            String type = in.readUTF();
+            int snippetCount = in.readInt();
+            List<TextSnippet> snippets = new ArrayList<>(snippetCount);
+            for (int j = 0; j < snippetCount; j++) {
+                snippets.add(new TextSnippet(readString(in), readNullableString(in), in.readDouble(), in.readDouble(), readStrings(in),
+                        readCategories(in, categories, new ArrayList<>()), readCategories(in, categories, new HashSet<>())));
+            }
+            configuration.getTextSnippets().put(type, snippets);
+        }
+
+        int tileGeneratorCount = in.readInt();
+        for (int i = 0; i < tileGeneratorCount; i++) {
+            configuration.getTileGenerators().add(new TileGenerator(readString(in), readNullableString(in), in.readDouble(), in.readDouble(), readStrings(in),
+                    readCategories(in, categories, new ArrayList<>()), readCategories(in, categories, new HashSet<>())));
+        }
+
+        int difficultyCount = in.readInt();
+        for (int i = 0; i < difficultyCount; i++) {
+            configuration.getDifficulties().add(new Difficulty(in.readUTF(), in.readDouble()));
+        }
+
+        int valueProviderCount = in.readInt();
+        for (int i = 0; i < valueProviderCount; i++) {
+            String name = in.readUTF();
+            ValueProvider valueProvider = new ValueProvider();
+            int providerCount = in.readInt();
+            for (int j = 0; j < providerCount; j++) {
+                valueProvider.getDifficultyProviders().put(in.readUTF(), new ValueProvider.NumberProvider(in.readInt(), in.readInt(), in.readDouble()));
+            }
+            configuration.getValueProviders().put(name, valueProvider);
+        }
+
+        if (in.available() > 0) {
+            throw new IOException("Unexpected data at the end of the cache");
+        }
+        configuration.compile();
+        return configuration;
+    }
+
+    private static void writeCategories(DataOutputStream out, Collection<Category> categories, Map<Category, Integer> categoryIds) throws IOException {
+        out.writeInt(categories.size());
+        for (Category category : categories) {
+            Integer id = categoryIds.get(category);
+            if (id == null) {
+                throw new IllegalArgumentException("Category [" + category + "] is not part of the configuration");
+            }
+            out.writeInt(id);
+        }
+    }
+
+    private static <C extends Collection<Category>> C readCategories(DataInputStream in, List<Category> categories, C addTo) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            addTo.add(categories.get(in.readInt()));
+        }
+        return addTo;
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+        out.writeInt(strings == null ? -1 : strings.size());
+        if (strings != null) {
+            for (String string : strings) {
+                writeNullableString(out, string);
+            }
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) return null;
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(readNullableString(in));
+        }
+        return strings;
+    }
+
+    private static void writeNullableString(DataOutputStream out, String string) throws IOException {
+        out.writeBoolean(string != null);
+        if (string != null) {
+            writeString(out, string);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+
+    /**
+     * Unlike {@link DataOutputStream#writeUTF(String)}, this is not limited to 64 KB per string.
+     */
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] hash(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private final static int MAGIC = 0x42494E47;
+    private final static int FORMAT_VERSION = 2;
+    private final static String CACHE_FILE_EXTENSION = ".bingocache";
+}
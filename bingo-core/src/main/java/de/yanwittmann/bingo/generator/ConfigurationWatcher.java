@@ -0,0 +1,105 @@
+package de.yanwittmann.bingo.generator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds a configuration that is reloaded whenever its file changes.<br>
+ * Only the sections of the file that changed are parsed again, see {@link BingoConfiguration#reload(InputStream)}.
+ * The new configuration replaces the old one atomically once it is compiled, so a {@link BingoGenerator} that was
+ * created with this watcher finishes the boards it is currently generating with the old snapshot and uses the new
+ * one for the next board. If the changed file cannot be parsed, the old configuration is kept.
+ */
+public final class ConfigurationWatcher implements Closeable {
+
+    private final static Logger LOG = LoggerFactory.getLogger(ConfigurationWatcher.class);
+
+    private final Path file;
+    private final AtomicReference<BingoConfiguration> configuration;
+    private final WatchService watchService;
+    private final Thread watchThread;
+
+    public ConfigurationWatcher(File configurationFile) throws IOException {
+        this.file = configurationFile.toPath().toAbsolutePath();
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            this.configuration = new AtomicReference<>(new BingoConfiguration(inputStream));
+        }
+        this.watchService = file.getFileSystem().newWatchService();
+        // the directory is watched, as editors often replace the file instead of writing to it
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.watchThread = new Thread(this::watch, "bingo-configuration-watcher");
+        this.watchThread.setDaemon(true);
+        this.watchThread.start();
+    }
+
+    public BingoConfiguration getConfiguration() {
+        return configuration.get();
+    }
+
+    public CompiledBingoConfiguration getCompiledConfiguration() {
+        return configuration.get().getCompiledConfiguration();
+    }
+
+    /**
+     * Reloads the configuration file now, regardless of whether a change was detected.
+     *
+     * @return Whether the file could be loaded. If not, the previous configuration is still used.
+     */
+    public synchronized boolean reload() {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            BingoConfiguration previous = configuration.get();
+            BingoConfiguration reloaded = previous.reload(inputStream);
+            if (reloaded != previous) {
+                configuration.set(reloaded);
+                LOG.info("Reloaded configuration [{}]", file.getFileName());
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Could not reload configuration [{}], keeping the previous one: {}", file.getFileName(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                // editors often write a file in several steps, so the file is only loaded once no more events arrive
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context())) {
+                            changed = true;
+                        }
+                    }
+                    if (!key.reset()) {
+                        LOG.warn("Directory of configuration [{}] is no longer accessible, stopping to watch it", file.getFileName());
+                        return;
+                    }
+                    key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // the watcher was closed
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        watchThread.interrupt();
+    }
+
+    private final static long QUIET_PERIOD_MILLIS = 100;
+}
@@ -0,0 +1,46 @@
+package de.yanwittmann.bingo.generator;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Deadlines are stored as {@link System#nanoTime()} values, which are not affected by changes to the system clock.
+ */
+public final class Deadline {
+
+    /**
+     * A deadline that is never reached.
+     */
+    public final static long NONE = Long.MAX_VALUE;
+
+    private static volatile LongSupplier clock = System::nanoTime;
+
+    private Deadline() {
+    }
+
+    public static long after(Duration timeout) {
+        if (timeout == null) return NONE;
+        return now() + timeout.toNanos();
+    }
+
+    public static boolean isReached(long deadline) {
+        return deadline != NONE && now() - deadline >= 0;
+    }
+
+    /**
+     * @return The current time that deadlines are compared to, {@link System#nanoTime()} unless a different clock has
+     * been set.
+     */
+    static long now() {
+        return clock.getAsLong();
+    }
+
+    /**
+     * Replaces the clock that deadlines are compared to, so that tests do not depend on how fast they are run.
+     *
+     * @param clock The clock to use, or <code>null</code> to use {@link System#nanoTime()} again.
+     */
+    static void setClock(LongSupplier clock) {
+        Deadline.clock = clock == null ? System::nanoTime : clock;
+    }
+}
@@ -11,6 +11,11 @@ public class Difficulty {
         this.score = Double.parseDouble(String.valueOf(optionMap.getOrDefault(BingoConfiguration.KEY_DIFFICULTY_SCORE, 1)));
     }
 
+    Difficulty(String name, double score) {
+        this.name = name;
+        this.score = score;
+    }
+
     public String getName() {
         return name;
     }
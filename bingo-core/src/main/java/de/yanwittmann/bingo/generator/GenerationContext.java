@@ -0,0 +1,277 @@
+package de.yanwittmann.bingo.generator;
+
+import de.yanwittmann.bingo.BingoTile;
+
+import java.util.*;
+
+/**
+ * The tiles of a board that is currently being generated.<br>
+ * Keeps track of how often each category occurs and which categories must or may not be picked next, and updates
+ * them whenever a tile is added or removed instead of counting all tiles again for every new tile.
+ */
+public class GenerationContext {
+
+    private final List<Category> categories;
+    private final int destAmount;
+    private final List<BingoTile> tiles = new ArrayList<>();
+    private final int[] categoryCounts;
+    private final double[] minCounts;
+    private final double[] maxCounts;
+    private final Map<Category, Integer> otherCategoryCounts = new HashMap<>();
+    private long[] textKeyHashes = new long[16];
+    private BingoTile[] textKeyTiles = new BingoTile[16];
+    private int[] textKeyCounts = new int[16];
+    private int usedTextKeySlots = 0;
+    private int liveTextKeySlots = 0;
+    private final CategoryMask mustBeCategories = new CategoryMask();
+    private final CategoryMask mayNotBeCategories = new CategoryMask();
+    private double difficultySum = 0;
+
+    public GenerationContext(List<Category> categories, int destAmount) {
+        this.categories = categories;
+        this.destAmount = destAmount;
+        this.categoryCounts = new int[categories.size()];
+        this.minCounts = new double[categories.size()];
+        this.maxCounts = new double[categories.size()];
+        for (int i = 0; i < categories.size(); i++) {
+            Category category = categories.get(i);
+            minCounts[i] = Math.max(category.getMinAbsolute(), category.getMinRelative() * 0.01 * destAmount);
+            maxCounts[i] = Math.ceil(Math.min(category.getMaxAbsolute(), category.getMaxRelative() * 0.01 * destAmount));
+            updateConstraints(i);
+        }
+    }
+
+    public GenerationContext(List<Category> categories, int destAmount, List<BingoTile> tiles) {
+        this(categories, destAmount);
+        tiles.forEach(this::add);
+    }
+
+    public void add(BingoTile tile) {
+        tiles.add(tile);
+        difficultySum += tile.getDifficulty();
+        changeTextKeyCount(tile, 1);
+        for (Category category : tile.getCategories()) {
+            changeCount(category, 1);
+        }
+    }
+
+    public BingoTile remove(int index) {
+        BingoTile tile = tiles.remove(index);
+        onRemoved(tile);
+        return tile;
+    }
+
+    public boolean remove(BingoTile tile) {
+        if (tiles.remove(tile)) {
+            onRemoved(tile);
+            return true;
+        }
+        return false;
+    }
+
+    private void onRemoved(BingoTile tile) {
+        difficultySum -= tile.getDifficulty();
+        changeTextKeyCount(tile, -1);
+        for (Category category : tile.getCategories()) {
+            changeCount(category, -1);
+        }
+    }
+
+    private void changeCount(Category category, int delta) {
+        int id = category.getId();
+        if (id >= 0 && id < categoryCounts.length && categories.get(id) == category) {
+            categoryCounts[id] += delta;
+            updateConstraints(id);
+        } else {
+            otherCategoryCounts.merge(category, delta, Integer::sum);
+        }
+    }
+
+    /**
+     * Replaces the current tiles with the given ones, only the tiles that differ are removed or added.
+     *
+     * @param snapshot The tiles to restore, usually a copy of {@link #getTiles()} that was taken earlier.
+     */
+    public void restore(List<BingoTile> snapshot) {
+        Set<BingoTile> keep = Collections.newSetFromMap(new IdentityHashMap<>());
+        keep.addAll(snapshot);
+        for (int i = tiles.size() - 1; i >= 0; i--) {
+            if (!keep.remove(tiles.get(i))) {
+                remove(i);
+            }
+        }
+        // the remaining tiles have to be added again
+        for (BingoTile tile : snapshot) {
+            if (keep.contains(tile)) {
+                add(tile);
+            }
+        }
+        tiles.clear();
+        tiles.addAll(snapshot);
+        // recalculate the sum to prevent rounding errors from adding up over many rounds
+        difficultySum = 0;
+        for (BingoTile tile : tiles) {
+            difficultySum += tile.getDifficulty();
+        }
+    }
+
+    /**
+     * @param textKey A key created by {@link BingoTile#normalizeText(String)}.
+     * @return Whether a tile with the same text, ignoring numbers and case, is part of the board.
+     */
+    public boolean containsTextKey(String textKey) {
+        // normalizing a key again does not change it, so it can be looked up like a text
+        return containsText(textKey);
+    }
+
+    /**
+     * Same as {@link #containsTextKey(String)}, but takes the text itself, so that a text that is still being
+     * generated can be checked without creating its key.
+     */
+    public boolean containsText(CharSequence text) {
+        if (text == null) return false;
+        return textKeyCounts[textKeySlot(BingoTile.hashText(text), text)] > 0;
+    }
+
+    /**
+     * The text keys are counted in an open addressing table, so that adding and checking a tile does not create any
+     * objects. Every slot stores the hash of its key and a tile with the key to compare texts with. Keys that are no
+     * longer counted keep their slot until the table is rehashed.
+     */
+    private void changeTextKeyCount(BingoTile tile, int delta) {
+        long hash = tile.getTextKeyHash();
+        int slot = textKeySlot(hash, tile.getText());
+        if (textKeyTiles[slot] == null) {
+            if (delta < 0) return;
+            if ((usedTextKeySlots + 1) * 2 > textKeyTiles.length) {
+                rehashTextKeys();
+                slot = textKeySlot(hash, tile.getText());
+            }
+            textKeyHashes[slot] = hash;
+            textKeyTiles[slot] = tile;
+            usedTextKeySlots++;
+        }
+        int count = textKeyCounts[slot];
+        textKeyCounts[slot] = count + delta;
+        if (count == 0) {
+            liveTextKeySlots++;
+        } else if (count + delta == 0) {
+            liveTextKeySlots--;
+        }
+    }
+
+    /**
+     * Drops the keys that are no longer counted. The table only grows if most of its slots are still counted, so that
+     * replacing tiles over and over again does not make it grow with every text that was ever generated.
+     */
+    private void rehashTextKeys() {
+        long[] hashes = textKeyHashes;
+        BingoTile[] tiles = textKeyTiles;
+        int[] counts = textKeyCounts;
+        int capacity = (liveTextKeySlots + 1) * 4 > tiles.length ? tiles.length * 2 : tiles.length;
+        textKeyHashes = new long[capacity];
+        textKeyTiles = new BingoTile[capacity];
+        textKeyCounts = new int[capacity];
+        for (int i = 0; i < tiles.length; i++) {
+            if (counts[i] > 0) {
+                int slot = textKeySlot(hashes[i], tiles[i].getText());
+                textKeyHashes[slot] = hashes[i];
+                textKeyTiles[slot] = tiles[i];
+                textKeyCounts[slot] = counts[i];
+            }
+        }
+        usedTextKeySlots = liveTextKeySlots;
+    }
+
+    /**
+     * @return The slot of the key of the text, or the empty slot it would be stored in. Only the tile of a slot with
+     * the same hash is compared with the text.
+     */
+    private int textKeySlot(long hash, CharSequence text) {
+        int mask = textKeyTiles.length - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (textKeyTiles[slot] != null && (textKeyHashes[slot] != hash || !textKeyTiles[slot].isTextEqual(text))) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * @return The amount of slots of the text key table, for tests.
+     */
+    int getTextKeyCapacity() {
+        return textKeyTiles.length;
+    }
+
+    public void sort(Comparator<BingoTile> comparator) {
+        tiles.sort(comparator);
+    }
+
+    private void updateConstraints(int id) {
+        int count = categoryCounts[id];
+        if (count < minCounts[id]) {
+            mustBeCategories.add(id);
+            mayNotBeCategories.remove(id);
+        } else if (count >= maxCounts[id]) {
+            mustBeCategories.remove(id);
+            mayNotBeCategories.add(id);
+        } else {
+            mustBeCategories.remove(id);
+            mayNotBeCategories.remove(id);
+        }
+    }
+
+    public List<BingoTile> getTiles() {
+        return Collections.unmodifiableList(tiles);
+    }
+
+    public int size() {
+        return tiles.size();
+    }
+
+    public int getDestAmount() {
+        return destAmount;
+    }
+
+    public double getAverageDifficulty() {
+        return tiles.isEmpty() ? 0.0 : difficultySum / tiles.size();
+    }
+
+    /**
+     * @return The categories that are below their minimum amount. The mask is updated in place when tiles change.
+     */
+    public CategoryMask getMustBeCategoryMask() {
+        return mustBeCategories;
+    }
+
+    /**
+     * @return The categories that reached their maximum amount. The mask is updated in place when tiles change.
+     */
+    public CategoryMask getMayNotBeCategoryMask() {
+        return mayNotBeCategories;
+    }
+
+    public Set<Category> getMustBeCategories() {
+        return toCategories(mustBeCategories);
+    }
+
+    public Set<Category> getMayNotBeCategories() {
+        return toCategories(mayNotBeCategories);
+    }
+
+    private Set<Category> toCategories(CategoryMask mask) {
+        Set<Category> result = new HashSet<>();
+        for (int i = mask.nextSetBit(0); i >= 0; i = mask.nextSetBit(i + 1)) {
+            result.add(categories.get(i));
+        }
+        return result;
+    }
+
+    public Map<Category, Integer> getCategoryCount() {
+        Map<Category, Integer> counts = new HashMap<>(otherCategoryCounts);
+        for (int i = 0; i < categoryCounts.length; i++) {
+            counts.put(categories.get(i), categoryCounts[i]);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,114 @@
+package de.yanwittmann.bingo.generator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Emits Java Flight Recorder events for the phases of the generation of a board, so that slow boards can be related to
+ * garbage collections and safepoints in a recording.<br>
+ * The events are defined in the sources for Java 11 and newer, which are only compiled by the <code>jdk11</code>
+ * profile. If they are missing or cannot be loaded, for example on Java 8, nothing is emitted. Otherwise an event is
+ * only created if its type is enabled in a running recording, so without a recording the events cost next to nothing.
+ * <br>
+ * Every <code>begin</code> method returns the started event, or <code>null</code> if the event is not recorded, which
+ * has to be passed to the matching <code>commit</code> method.
+ */
+public abstract class GenerationEvents {
+
+    private final static Logger LOG = LoggerFactory.getLogger(GenerationEvents.class);
+
+    GenerationEvents() {
+    }
+
+    public static GenerationEvents get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return Whether the events are sent to the flight recorder, which requires Java 11 or newer.
+     */
+    public abstract boolean isAvailable();
+
+    public abstract Object beginBoard();
+
+    public abstract void commitBoard(Object event, int width, int height, double difficulty, String configuration,
+                                     int attempts, int maxAttempts, StopReason stopReason, double averageDifficulty, int layoutScore);
+
+    public abstract Object beginTileReplacement();
+
+    public abstract void commitTileReplacement(Object event, int width, int height, double difficulty, String configuration,
+                                               int iterations, double averageDifficulty);
+
+    public abstract Object beginTile();
+
+    public abstract void commitTile(Object event, double difficulty, String configuration, int retries, double tileDifficulty);
+
+    public abstract Object beginPopulate();
+
+    public abstract void commitPopulate(Object event, int width, int height, double difficulty, String configuration,
+                                        int tiles, StopReason stopReason, int layoutScore);
+
+    public static String getTitle(BingoBoardMetadata boardMetadata) {
+        return boardMetadata == null ? null : boardMetadata.getTitle();
+    }
+
+    private static GenerationEvents load() {
+        try {
+            return (GenerationEvents) Class.forName(FLIGHT_RECORDER_EVENTS_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            return new Disabled();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            LOG.debug("Flight recorder events are not available: {}", e.toString());
+            return new Disabled();
+        }
+    }
+
+    private static class Disabled extends GenerationEvents {
+        @Override
+        public boolean isAvailable() {
+            return false;
+        }
+
+        @Override
+        public Object beginBoard() {
+            return null;
+        }
+
+        @Override
+        public void commitBoard(Object event, int width, int height, double difficulty, String configuration,
+                                int attempts, int maxAttempts, StopReason stopReason, double averageDifficulty, int layoutScore) {
+        }
+
+        @Override
+        public Object beginTileReplacement() {
+            return null;
+        }
+
+        @Override
+        public void commitTileReplacement(Object event, int width, int height, double difficulty, String configuration,
+                                          int iterations, double averageDifficulty) {
+        }
+
+        @Override
+        public Object beginTile() {
+            return null;
+        }
+
+        @Override
+        public void commitTile(Object event, double difficulty, String configuration, int retries, double tileDifficulty) {
+        }
+
+        @Override
+        public Object beginPopulate() {
+            return null;
+        }
+
+        @Override
+        public void commitPopulate(Object event, int width, int height, double difficulty, String configuration,
+                                   int tiles, StopReason stopReason, int layoutScore) {
+        }
+    }
+
+    private final static String FLIGHT_RECORDER_EVENTS_CLASS = "de.yanwittmann.bingo.generator.FlightRecorderGenerationEvents";
+    private final static GenerationEvents INSTANCE = load();
+}
@@ -0,0 +1,56 @@
+package de.yanwittmann.bingo.generator;
+
+import de.yanwittmann.bingo.BingoTile;
+
+/**
+ * Is notified about what happens while boards are generated, for example to find out why some boards take much longer
+ * than others.<br>
+ * All methods do nothing by default, so only the relevant ones have to be implemented. Listeners are called from the
+ * loops that generate the tiles and place them on the board, so they should return quickly. Boards of a batch and
+ * layouts that are searched on a pool are generated on several threads at once, in that case the listener has to be
+ * thread-safe. See {@link GenerationStatistics} and {@link LoggingGenerationListener}.
+ */
+public interface GenerationListener {
+
+    /**
+     * A listener that ignores all events.
+     */
+    GenerationListener NONE = new GenerationListener() {
+    };
+
+    /**
+     * @param durationNanos The time the phase took for one board.
+     */
+    default void onPhaseCompleted(GenerationPhase phase, long durationNanos) {
+    }
+
+    /**
+     * @param tile    The tile that was drawn, it may still be rejected by the generator.
+     * @param retries How often an expanded text was discarded because it has already been used on the board or its
+     *                categories have antisynergies with the ones of its tile generator.
+     */
+    default void onTileGenerated(BingoTile tile, int retries) {
+    }
+
+    /**
+     * @param destinationDifficulty The difficulty the tile should have had.
+     */
+    default void onGeneratorFallback(GeneratorFallback fallback, double destinationDifficulty) {
+    }
+
+    /**
+     * Called when the average difficulty of the board got closer to the destination difficulty.
+     *
+     * @param previousDistance  The previous distance to the destination difficulty.
+     * @param distance          The new distance to the destination difficulty.
+     * @param averageDifficulty The new average difficulty of the board.
+     */
+    default void onImprovement(double previousDistance, double distance, double averageDifficulty) {
+    }
+
+    /**
+     * Called when a layout with a better score was found while the tiles are placed on the board.
+     */
+    default void onLayoutImprovement(int score) {
+    }
+}
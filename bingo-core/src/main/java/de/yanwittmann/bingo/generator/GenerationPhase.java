@@ -0,0 +1,19 @@
+package de.yanwittmann.bingo.generator;
+
+/**
+ * The phases of the generation of a board, see {@link GenerationListener#onPhaseCompleted(GenerationPhase, long)}.
+ */
+public enum GenerationPhase {
+    /**
+     * Generating tiles until the board is full for the first time.
+     */
+    FILL,
+    /**
+     * Replacing tiles until the average difficulty of the board is close enough to the destination difficulty.
+     */
+    OPTIMIZE,
+    /**
+     * Placing the tiles on the board, see {@link de.yanwittmann.bingo.BingoBoard#populate}.
+     */
+    POPULATE
+}
@@ -0,0 +1,39 @@
+package de.yanwittmann.bingo.generator;
+
+import de.yanwittmann.bingo.BingoBoard;
+
+/**
+ * A generated board together with the reason why the generation stopped.
+ */
+public class GenerationResult {
+
+    private final BingoBoard board;
+    private final StopReason stopReason;
+    private final long elapsedNanos;
+
+    public GenerationResult(BingoBoard board, StopReason stopReason, long elapsedNanos) {
+        this.board = board;
+        this.stopReason = stopReason;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public BingoBoard getBoard() {
+        return board;
+    }
+
+    public StopReason getStopReason() {
+        return stopReason;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "GenerationResult{" +
+                "stopReason=" + stopReason +
+                ", elapsedMillis=" + elapsedNanos / 1_000_000 +
+                '}';
+    }
+}
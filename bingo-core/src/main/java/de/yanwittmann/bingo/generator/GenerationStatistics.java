@@ -0,0 +1,115 @@
+package de.yanwittmann.bingo.generator;
+
+import de.yanwittmann.bingo.BingoTile;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link GenerationListener} that counts the events of all boards it has been attached to. The counters can be read
+ * while boards are being generated, also from other threads.
+ */
+public class GenerationStatistics implements GenerationListener {
+
+    private final LongAdder[] phaseNanos = createAdders(GenerationPhase.values().length);
+    private final LongAdder[] phaseCounts = createAdders(GenerationPhase.values().length);
+    private final LongAdder[] fallbacks = createAdders(GeneratorFallback.values().length);
+    private final LongAdder tileDraws = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder improvements = new LongAdder();
+    private final LongAdder layoutImprovements = new LongAdder();
+
+    private static LongAdder[] createAdders(int amount) {
+        LongAdder[] adders = new LongAdder[amount];
+        for (int i = 0; i < amount; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    @Override
+    public void onPhaseCompleted(GenerationPhase phase, long durationNanos) {
+        phaseNanos[phase.ordinal()].add(durationNanos);
+        phaseCounts[phase.ordinal()].increment();
+    }
+
+    @Override
+    public void onTileGenerated(BingoTile tile, int retries) {
+        tileDraws.increment();
+        this.retries.add(retries);
+    }
+
+    @Override
+    public void onGeneratorFallback(GeneratorFallback fallback, double destinationDifficulty) {
+        fallbacks[fallback.ordinal()].increment();
+    }
+
+    @Override
+    public void onImprovement(double previousDistance, double distance, double averageDifficulty) {
+        improvements.increment();
+    }
+
+    @Override
+    public void onLayoutImprovement(int score) {
+        layoutImprovements.increment();
+    }
+
+    /**
+     * @return The total time spent in the phase over all boards.
+     */
+    public long getPhaseNanos(GenerationPhase phase) {
+        return phaseNanos[phase.ordinal()].sum();
+    }
+
+    /**
+     * @return How often the phase has been completed, usually once per board.
+     */
+    public long getPhaseCount(GenerationPhase phase) {
+        return phaseCounts[phase.ordinal()].sum();
+    }
+
+    public long getTileDraws() {
+        return tileDraws.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getFallbacks(GeneratorFallback fallback) {
+        return fallbacks[fallback.ordinal()].sum();
+    }
+
+    public long getImprovements() {
+        return improvements.sum();
+    }
+
+    public long getLayoutImprovements() {
+        return layoutImprovements.sum();
+    }
+
+    public void reset() {
+        for (LongAdder adder : phaseNanos) adder.reset();
+        for (LongAdder adder : phaseCounts) adder.reset();
+        for (LongAdder adder : fallbacks) adder.reset();
+        tileDraws.reset();
+        retries.reset();
+        improvements.reset();
+        layoutImprovements.reset();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("GenerationStatistics{");
+        for (GenerationPhase phase : GenerationPhase.values()) {
+            sb.append(phase.name().toLowerCase()).append("Millis=").append(getPhaseNanos(phase) / 1_000_000).append(", ");
+        }
+        sb.append("tileDraws=").append(getTileDraws())
+                .append(", retries=").append(getRetries());
+        for (GeneratorFallback fallback : GeneratorFallback.values()) {
+            sb.append(", ").append(fallback.name().toLowerCase()).append("Fallbacks=").append(getFallbacks(fallback));
+        }
+        return sb.append(", improvements=").append(getImprovements())
+                .append(", layoutImprovements=").append(getLayoutImprovements())
+                .append('}').toString();
+    }
+}
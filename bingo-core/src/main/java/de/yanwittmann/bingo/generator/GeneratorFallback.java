@@ -0,0 +1,16 @@
+package de.yanwittmann.bingo.generator;
+
+/**
+ * Why a tile was drawn from more tile generators than it should have been, see
+ * {@link GenerationListener#onGeneratorFallback(GeneratorFallback, double)}.
+ */
+public enum GeneratorFallback {
+    /**
+     * No tile generator is allowed for the destination difficulty, so all generators were used.
+     */
+    DIFFICULTY,
+    /**
+     * No tile generator matches the categories that must or may not be picked next, so the categories were ignored.
+     */
+    CATEGORIES
+}
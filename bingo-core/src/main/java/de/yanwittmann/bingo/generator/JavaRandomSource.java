@@ -0,0 +1,42 @@
+package de.yanwittmann.bingo.generator;
+
+import de.yanwittmann.bingo.interfaces.RandomSource;
+
+import java.util.Random;
+
+/**
+ * Adapts a {@link Random} to a {@link RandomSource}, so that existing code that passes a seeded {@link Random} keeps
+ * generating the same boards.
+ */
+public final class JavaRandomSource implements RandomSource {
+
+    private final Random random;
+
+    public JavaRandomSource(Random random) {
+        this.random = random;
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    @Override
+    public double nextDouble() {
+        return random.nextDouble();
+    }
+
+    @Override
+    public long nextLong() {
+        return random.nextLong();
+    }
+
+    @Override
+    public RandomSource split() {
+        return new JavaRandomSource(new Random(random.nextLong()));
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+}
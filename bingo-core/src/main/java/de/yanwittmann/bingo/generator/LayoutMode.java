@@ -0,0 +1,19 @@
+package de.yanwittmann.bingo.generator;
+
+/**
+ * How {@link de.yanwittmann.bingo.BingoBoard#populate} searches for a layout with many synergies and few antisynergies
+ * in the rows of the board.
+ */
+public enum LayoutMode {
+    /**
+     * Starts with a random layout and repeatedly swaps two cells, keeping the swap if the score did not get worse.
+     * Only the rows and layers of the two cells are scored again after a swap. Has to be enabled with
+     * {@link de.yanwittmann.bingo.BingoBoard#setLayoutMode(LayoutMode)}.
+     */
+    SWAP,
+    /**
+     * The original algorithm and the default: shuffles all tiles and scores the whole board for every try, keeping the
+     * best layout.
+     */
+    SHUFFLE
+}
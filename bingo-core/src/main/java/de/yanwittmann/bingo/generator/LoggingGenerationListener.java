@@ -0,0 +1,35 @@
+package de.yanwittmann.bingo.generator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link GenerationListener} that logs the improvements and fallbacks that the generator used to always log. It is
+ * not attached by default, as logging from the generation loops takes time itself.
+ */
+public class LoggingGenerationListener implements GenerationListener {
+
+    private final static Logger LOG = LoggerFactory.getLogger(LoggingGenerationListener.class);
+
+    @Override
+    public void onPhaseCompleted(GenerationPhase phase, long durationNanos) {
+        LOG.info("Phase [{}] took [{}] ms", phase, durationNanos / 1_000_000);
+    }
+
+    @Override
+    public void onGeneratorFallback(GeneratorFallback fallback, double destinationDifficulty) {
+        if (fallback == GeneratorFallback.DIFFICULTY) {
+            LOG.warn("No tile generators found for difficulty [{}], using all generators", destinationDifficulty);
+        }
+    }
+
+    @Override
+    public void onImprovement(double previousDistance, double distance, double averageDifficulty) {
+        LOG.info("Found better board [{}] -> [{}] [{}]", previousDistance, distance, averageDifficulty);
+    }
+
+    @Override
+    public void onLayoutImprovement(int score) {
+        LOG.info("New best score [{}]", score);
+    }
+}
@@ -0,0 +1,19 @@
+package de.yanwittmann.bingo.generator;
+
+/**
+ * How the {@link BingoGenerator} moves the average difficulty of a board towards the destination difficulty.
+ */
+public enum OptimizationMode {
+    /**
+     * Replaces single tiles and keeps worse boards with a decreasing probability, like simulated annealing.<br>
+     * Stops as soon as the board is within the difficulty tolerance. Has to be enabled with
+     * {@link BingoGenerator#setOptimizationMode(OptimizationMode)}.
+     */
+    ANNEALING,
+    /**
+     * The original algorithm and the default: removes several tiles by difficulty or at random, fills the board up again
+     * and restores the previous tiles if the board got worse. Runs all attempts, unless a difficulty tolerance has been
+     * set explicitly with {@link BingoGenerator#setDifficultyTolerance(double)} or the time runs out.
+     */
+    CREATE_AND_REMOVE
+}
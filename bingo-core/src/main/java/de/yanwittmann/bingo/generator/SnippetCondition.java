@@ -0,0 +1,104 @@
+package de.yanwittmann.bingo.generator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+/**
+ * A condition of a snippet placeholder like <code>tag(campfire)</code> or <code>!category(ship)</code>, parsed once
+ * when the configuration is compiled.<br>
+ * Tags and categories are resolved to their ids, so checking a snippet is a single bit test on the tag or category
+ * masks of the snippet instead of comparing names.
+ */
+final class SnippetCondition {
+
+    private final static Logger LOG = LoggerFactory.getLogger(SnippetCondition.class);
+
+    private final Type type;
+    private final boolean negated;
+    private final int tagId;
+    private final CategoryMask categories;
+
+    private SnippetCondition(Type type, boolean negated, int tagId, CategoryMask categories) {
+        this.type = type;
+        this.negated = negated;
+        this.tagId = tagId;
+        this.categories = categories;
+    }
+
+    /**
+     * @param condition  The condition as it is written in the placeholder.
+     * @param tagIds     The ids of all tags of the compiled configuration.
+     * @param categories The categories of the compiled configuration, conditions match all categories with the name.
+     */
+    static SnippetCondition parse(String condition, Map<String, Integer> tagIds, List<Category> categories) {
+        if (TextSnippet.CONDITION_AVOID_DUPLICATES.equals(condition)) {
+            return new SnippetCondition(Type.AVOID_DUPLICATES, false, -1, null);
+        }
+
+        Matcher matcher = TextSnippet.CONDITION_PATTERN.matcher(condition);
+        if (!matcher.matches()) {
+            LOG.warn("Invalid condition [{}]", condition);
+            return ALWAYS;
+        }
+        String function = matcher.group(1);
+        String args = matcher.group(2);
+        boolean negated = function.startsWith("!");
+        switch (negated ? function.substring(1) : function) {
+            case "tag":
+                return new SnippetCondition(Type.TAG, negated, tagIds.getOrDefault(args, -1), null);
+            case "category":
+                return new SnippetCondition(Type.CATEGORY, negated, -1, categoriesNamed(args, categories));
+            case "derivedCategory":
+                return new SnippetCondition(Type.DERIVED_CATEGORY, negated, -1, categoriesNamed(args, categories));
+        }
+        LOG.warn("Unknown condition function [{}] in [{}]", function, condition);
+        return ALWAYS;
+    }
+
+    private static CategoryMask categoriesNamed(String name, List<Category> categories) {
+        CategoryMask mask = new CategoryMask();
+        for (Category category : categories) {
+            if (category.getName().equals(name)) {
+                mask.add(category);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @return Whether the condition depends on the text that has been generated so far.
+     */
+    boolean isTextDependent() {
+        return type == Type.AVOID_DUPLICATES;
+    }
+
+    boolean matches(TextSnippet snippet, CharSequence textSoFar) {
+        boolean matches;
+        switch (type) {
+            case TAG:
+                matches = tagId >= 0 && snippet.getTagMask().get(tagId);
+                break;
+            case CATEGORY:
+                matches = snippet.getCategoryMask().intersects(categories);
+                break;
+            case DERIVED_CATEGORY:
+                matches = snippet.getDerivedCategoryMask().intersects(categories);
+                break;
+            case AVOID_DUPLICATES:
+                return !snippet.isContainedIn(textSoFar);
+            default:
+                return true;
+        }
+        return matches != negated;
+    }
+
+    private enum Type {
+        TAG, CATEGORY, DERIVED_CATEGORY, AVOID_DUPLICATES, ALWAYS
+    }
+
+    private final static SnippetCondition ALWAYS = new SnippetCondition(Type.ALWAYS, false, -1, null);
+}
@@ -0,0 +1,170 @@
+package de.yanwittmann.bingo.generator;
+
+import java.util.*;
+
+/**
+ * The graph of which snippet types reference which other snippet types, used to derive the categories a text can get
+ * from the snippets that may be inserted into it.<br>
+ * Snippet types that reference each other are collapsed into one component, so cycles are handled. The categories
+ * that can be reached from each component are calculated once, in a single pass over the components in topological
+ * order, and are shared by all texts that only reference one component.
+ */
+final class SnippetGraph {
+
+    private final Map<String, List<TextSnippet>> textSnippets;
+    private final Map<String, Integer> typeIds = new HashMap<>();
+    private final List<Category> categories = new ArrayList<>();
+    private final Map<Category, Integer> categoryIds = new HashMap<>();
+    private final int[] componentOfType;
+    private final List<BitSet> componentCategories = new ArrayList<>();
+    private final List<Set<Category>> componentCategorySets = new ArrayList<>();
+
+    SnippetGraph(Map<String, List<TextSnippet>> textSnippets) {
+        this.textSnippets = textSnippets;
+        List<String> types = new ArrayList<>(textSnippets.keySet());
+        for (String type : types) {
+            typeIds.put(type, typeIds.size());
+        }
+
+        int typeCount = types.size();
+        BitSet[] ownCategories = new BitSet[typeCount];
+        int[][] references = new int[typeCount][];
+        for (int i = 0; i < typeCount; i++) {
+            ownCategories[i] = new BitSet();
+            BitSet referencedTypes = new BitSet(typeCount);
+            for (TextSnippet snippet : textSnippets.get(types.get(i))) {
+                for (Category category : snippet.getCategories()) {
+                    ownCategories[i].set(categoryId(category));
+                }
+                referencedTypes.or(getReferencedTypes(snippet.getText()));
+            }
+            references[i] = referencedTypes.stream().toArray();
+        }
+
+        this.componentOfType = new int[typeCount];
+        collapseComponents(ownCategories, references);
+    }
+
+    /**
+     * Tarjan's algorithm without recursion, so that deeply nested snippets cannot overflow the stack. A component is
+     * completed only after all components it references, so their categories are already known.
+     */
+    private void collapseComponents(BitSet[] ownCategories, int[][] references) {
+        int typeCount = references.length;
+        int[] index = new int[typeCount];
+        int[] lowLink = new int[typeCount];
+        int[] nextReference = new int[typeCount];
+        boolean[] onStack = new boolean[typeCount];
+        int[] stack = new int[typeCount];
+        int[] callStack = new int[typeCount];
+        Arrays.fill(index, -1);
+        int stackSize = 0;
+        int counter = 0;
+
+        for (int root = 0; root < typeCount; root++) {
+            if (index[root] != -1) continue;
+            int depth = 0;
+            callStack[0] = root;
+            index[root] = lowLink[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (depth >= 0) {
+                int type = callStack[depth];
+                if (nextReference[type] < references[type].length) {
+                    int referenced = references[type][nextReference[type]++];
+                    if (index[referenced] == -1) {
+                        index[referenced] = lowLink[referenced] = counter++;
+                        stack[stackSize++] = referenced;
+                        onStack[referenced] = true;
+                        callStack[++depth] = referenced;
+                    } else if (onStack[referenced]) {
+                        lowLink[type] = Math.min(lowLink[type], index[referenced]);
+                    }
+                    continue;
+                }
+
+                if (lowLink[type] == index[type]) {
+                    int component = componentCategories.size();
+                    int first = stackSize;
+                    do {
+                        int member = stack[--first];
+                        onStack[member] = false;
+                        componentOfType[member] = component;
+                    } while (stack[first] != type);
+
+                    BitSet reachable = new BitSet();
+                    for (int i = first; i < stackSize; i++) {
+                        int member = stack[i];
+                        reachable.or(ownCategories[member]);
+                        for (int referenced : references[member]) {
+                            if (componentOfType[referenced] != component) {
+                                reachable.or(componentCategories.get(componentOfType[referenced]));
+                            }
+                        }
+                    }
+                    stackSize = first;
+                    componentCategories.add(reachable);
+                    componentCategorySets.add(toCategories(reachable));
+                }
+
+                depth--;
+                if (depth >= 0) {
+                    int caller = callStack[depth];
+                    lowLink[caller] = Math.min(lowLink[caller], lowLink[type]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The categories of all snippets that can be inserted into the text, directly or through other snippets.
+     * The returned set cannot be modified and may be shared with other texts.
+     */
+    Set<Category> getDerivedCategories(String text) {
+        BitSet referencedTypes = getReferencedTypes(text);
+        int component = -1;
+        BitSet reachable = null;
+        for (int type = referencedTypes.nextSetBit(0); type >= 0; type = referencedTypes.nextSetBit(type + 1)) {
+            int typeComponent = componentOfType[type];
+            if (component == -1) {
+                component = typeComponent;
+            } else if (typeComponent != component) {
+                if (reachable == null) {
+                    reachable = (BitSet) componentCategories.get(component).clone();
+                }
+                reachable.or(componentCategories.get(typeComponent));
+            }
+        }
+        if (component == -1) return Collections.emptySet();
+        if (reachable == null) return componentCategorySets.get(component);
+        return toCategories(reachable);
+    }
+
+    private BitSet getReferencedTypes(String text) {
+        BitSet referencedTypes = new BitSet(typeIds.size());
+        for (TextTemplate.Node node : TextTemplate.compile(text, textSnippets, Collections.emptyMap()).getNodes()) {
+            if (node instanceof TextTemplate.SnippetNode) {
+                for (String type : ((TextTemplate.SnippetNode) node).getSnippetTypes()) {
+                    referencedTypes.set(typeIds.get(type));
+                }
+            }
+        }
+        return referencedTypes;
+    }
+
+    private int categoryId(Category category) {
+        return categoryIds.computeIfAbsent(category, c -> {
+            categories.add(c);
+            return categories.size() - 1;
+        });
+    }
+
+    private Set<Category> toCategories(BitSet categoryBits) {
+        Set<Category> result = new LinkedHashSet<>();
+        for (int i = categoryBits.nextSetBit(0); i >= 0; i = categoryBits.nextSetBit(i + 1)) {
+            result.add(categories.get(i));
+        }
+        return Collections.unmodifiableSet(result);
+    }
+}
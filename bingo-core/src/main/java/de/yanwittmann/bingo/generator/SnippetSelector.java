@@ -0,0 +1,105 @@
+package de.yanwittmann.bingo.generator;
+
+import java.util.*;
+
+/**
+ * The snippets a placeholder like <code>[TYPE_A:TYPE_B:tag(x)]</code> can be replaced with.<br>
+ * All snippets of the listed types are collected and filtered by the conditions that do not depend on the generated
+ * text once when the configuration is compiled. Placeholders with the same types and conditions share one selector.
+ * Only conditions like {@link TextSnippet#CONDITION_AVOID_DUPLICATES} are evaluated every time a snippet is drawn.
+ */
+final class SnippetSelector {
+
+    private final List<TextSnippet> allSnippets;
+    private final List<TextSnippet> candidates;
+    private final List<SnippetCondition> textDependentConditions;
+    private final WeightedSampler<TextSnippet> sampler;
+    private final CategoryMask candidateCategories = new CategoryMask();
+
+    SnippetSelector(List<String> snippetTypes, List<SnippetCondition> conditions, Map<String, List<TextSnippet>> textSnippets) {
+        List<TextSnippet> allSnippets = new ArrayList<>();
+        for (String snippetType : snippetTypes) {
+            List<TextSnippet> snippets = textSnippets.get(snippetType);
+            if (snippets != null) {
+                allSnippets.addAll(snippets);
+            }
+        }
+
+        List<SnippetCondition> staticConditions = new ArrayList<>();
+        List<SnippetCondition> textDependentConditions = new ArrayList<>();
+        for (SnippetCondition condition : conditions) {
+            if (condition.isTextDependent()) {
+                textDependentConditions.add(condition);
+            } else {
+                staticConditions.add(condition);
+            }
+        }
+
+        List<TextSnippet> candidates = new ArrayList<>();
+        for (TextSnippet snippet : allSnippets) {
+            if (matchesAll(snippet, staticConditions, "")) {
+                candidates.add(snippet);
+            }
+        }
+
+        this.allSnippets = Collections.unmodifiableList(allSnippets);
+        this.textDependentConditions = Collections.unmodifiableList(textDependentConditions);
+        // if no snippet matches the conditions, the conditions are ignored
+        this.candidates = candidates.isEmpty() ? this.allSnippets : Collections.unmodifiableList(candidates);
+        this.sampler = new WeightedSampler<>(this.candidates);
+        for (TextSnippet snippet : this.candidates) {
+            candidateCategories.addAll(snippet.getCategoryMask());
+        }
+    }
+
+    /**
+     * @return Whether the candidates depend on the text that has been generated so far, which means that they cannot
+     * be cached and {@link #getCandidates(CharSequence, List)} has to be used.
+     */
+    boolean isTextDependent() {
+        return !textDependentConditions.isEmpty();
+    }
+
+    /**
+     * @return The snippets that match the conditions that do not depend on the text.
+     */
+    List<TextSnippet> getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * @return All categories that any of the {@link #getCandidates() candidates} has.
+     */
+    CategoryMask getCandidateCategories() {
+        return candidateCategories;
+    }
+
+    /**
+     * @param matching A list that is cleared and filled with the matching snippets, so that a list can be reused for
+     *                 every draw. It is only returned if any snippet matches.
+     */
+    List<TextSnippet> getCandidates(CharSequence textSoFar, List<TextSnippet> matching) {
+        if (textDependentConditions.isEmpty() || candidates == allSnippets) return candidates;
+        matching.clear();
+        for (int i = 0; i < candidates.size(); i++) {
+            TextSnippet snippet = candidates.get(i);
+            if (matchesAll(snippet, textDependentConditions, textSoFar)) {
+                matching.add(snippet);
+            }
+        }
+        return matching.isEmpty() ? allSnippets : matching;
+    }
+
+    WeightedSampler<TextSnippet> getSampler() {
+        return sampler;
+    }
+
+    private static boolean matchesAll(TextSnippet snippet, List<SnippetCondition> conditions, CharSequence textSoFar) {
+        for (int i = 0; i < conditions.size(); i++) {
+            if (!conditions.get(i).matches(snippet, textSoFar)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,47 @@
+package de.yanwittmann.bingo.generator;
+
+import de.yanwittmann.bingo.interfaces.RandomSource;
+
+import java.util.SplittableRandom;
+
+/**
+ * The default {@link RandomSource}, backed by a {@link SplittableRandom}.<br>
+ * Unlike {@link java.util.Random}, drawing a value does not need an atomic update, so a source must only be used by one
+ * thread at a time.
+ */
+public final class SplittableRandomSource implements RandomSource {
+
+    private final SplittableRandom random;
+
+    public SplittableRandomSource() {
+        this(new SplittableRandom());
+    }
+
+    public SplittableRandomSource(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private SplittableRandomSource(SplittableRandom random) {
+        this.random = random;
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    @Override
+    public double nextDouble() {
+        return random.nextDouble();
+    }
+
+    @Override
+    public long nextLong() {
+        return random.nextLong();
+    }
+
+    @Override
+    public RandomSource split() {
+        return new SplittableRandomSource(random.split());
+    }
+}
@@ -0,0 +1,19 @@
+package de.yanwittmann.bingo.generator;
+
+/**
+ * Why the generation of a board stopped, see {@link GenerationResult}.
+ */
+public enum StopReason {
+    /**
+     * The average difficulty of the board is within the difficulty tolerance.
+     */
+    TARGET_REACHED,
+    /**
+     * The deadline has passed, the best board found so far has been returned.
+     */
+    DEADLINE,
+    /**
+     * All generation attempts have been used up without reaching the target.
+     */
+    ATTEMPTS_EXHAUSTED
+}
@@ -5,53 +5,92 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.regex.Matcher;
+import java.util.stream.Collectors;
 import java.util.regex.Pattern;
 
 public class TextSnippet implements Weightable {
 
-    private final Logger LOG = LoggerFactory.getLogger(getClass());
+    private final static Logger LOG = LoggerFactory.getLogger(TextSnippet.class);
 
     private String text;
     private String tooltip;
     private double difficulty;
     private double weight;
     private final List<Category> categories;
-    private final Set<Category> derivedCategories;
+    private Set<Category> derivedCategories;
+    private TextTemplate template;
+    private CategoryMask categoryMask = new CategoryMask();
+    private CategoryMask antisynergyMask = new CategoryMask();
+    private CategoryMask derivedCategoryMask = new CategoryMask();
+    private BitSet tagMask = new BitSet();
+    private boolean frozen = false;
     private final List<String> tags;
 
     public TextSnippet(Map<String, Object> optionMap, List<Category> categories) {
+        this(optionMap, new CategoryRegistry(categories));
+    }
+
+    public TextSnippet(Map<String, Object> optionMap, CategoryRegistry categories) {
         this.text = (String) optionMap.get(BingoConfiguration.KEY_TEXT_SNIPPETS_TEXT);
         this.tooltip = (String) optionMap.getOrDefault(BingoConfiguration.KEY_TEXT_SNIPPETS_TOOLTIP, null);
         this.difficulty = Double.parseDouble(String.valueOf(optionMap.getOrDefault(BingoConfiguration.KEY_TEXT_SNIPPETS_DIFFICULTY, 0)));
         this.weight = Double.parseDouble(String.valueOf(optionMap.getOrDefault(BingoConfiguration.KEY_TEXT_SNIPPETS_WEIGHT, 1)));
         this.categories = new ArrayList<>();
         Category.createCategories((List<String>) optionMap.getOrDefault(BingoConfiguration.KEY_TEXT_SNIPPETS_CATEGORIES, Collections.emptyList()), categories, this.categories, text);
-        this.derivedCategories = new HashSet<>();
+        this.derivedCategories = Collections.emptySet();
         this.tags = (List<String>) optionMap.getOrDefault(BingoConfiguration.KEY_TEXT_SNIPPETS_TAGS, Collections.emptyList());
     }
 
-    public void deriveSnippetCategories(String text, Map<String, List<TextSnippet>> textSnippets) {
-        boolean found;
-        do {
-            found = false;
-            Matcher snippetsMatcher = TextSnippet.SNIPPET_PATTERN.matcher(text);
-            while (snippetsMatcher.find()) {
-                String snippetType = snippetsMatcher.group(1);
-                List<TextSnippet> snippets = textSnippets.get(snippetType);
-                if (snippets != null && snippets.size() > 0) {
-                    for (TextSnippet snippet : snippets) {
-                        for (Category category : snippet.getCategories()) {
-                            if (derivedCategories.add(category)) {
-                                deriveSnippetCategories(snippet.getText(), textSnippets);
-                            }
-                        }
-                    }
-                    found = true;
-                }
-                text = text.replace(snippetType, "");
-            }
-        } while (found);
+    /**
+     * Creates a snippet from values that were already validated and derived, used when loading a cached
+     * configuration.
+     */
+    TextSnippet(String text, String tooltip, double difficulty, double weight, List<String> tags, List<Category> categories, Set<Category> derivedCategories) {
+        this.text = text;
+        this.tooltip = tooltip;
+        this.difficulty = difficulty;
+        this.weight = weight;
+        this.tags = tags;
+        this.categories = categories;
+        this.derivedCategories = derivedCategories;
+    }
+
+    /**
+     * Creates a frozen copy of the given snippet for a compiled configuration.
+     */
+    TextSnippet(TextSnippet source, Function<Category, Category> categoryCopies) {
+        this.text = source.text;
+        this.tooltip = source.tooltip;
+        this.difficulty = source.difficulty;
+        this.weight = source.weight;
+        this.categories = Collections.unmodifiableList(source.categories.stream().map(categoryCopies).collect(Collectors.toList()));
+        this.derivedCategories = Collections.unmodifiableSet(new LinkedHashSet<>(source.derivedCategories.stream().map(categoryCopies).collect(Collectors.toList())));
+        this.tags = Collections.unmodifiableList(new ArrayList<>(source.tags));
+        updateCategoryMasks();
+        categoryMask.freeze();
+        derivedCategoryMask.freeze();
+        antisynergyMask.freeze();
+        this.frozen = true;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Text snippet [" + text + "] is part of a compiled configuration and cannot be modified");
+        }
+    }
+
+    /**
+     * Derives the categories of the snippets that can be inserted into the text of this snippet.
+     */
+    public void deriveSnippetCategories(Map<String, List<TextSnippet>> textSnippets) {
+        deriveSnippetCategories(new SnippetGraph(textSnippets));
+    }
+
+    void deriveSnippetCategories(SnippetGraph snippetGraph) {
+        checkNotFrozen();
+        this.derivedCategories = snippetGraph.getDerivedCategories(text);
     }
 
     public String getText() {
@@ -63,14 +102,26 @@ public class TextSnippet implements Weightable {
     }
 
     public void setText(String text) {
+        checkNotFrozen();
         this.text = text;
+        this.template = null;
+    }
+
+    public TextTemplate getTemplate() {
+        return template;
+    }
+
+    void setTemplate(TextTemplate template) {
+        this.template = template;
     }
 
     public void setDifficulty(double difficulty) {
+        checkNotFrozen();
         this.difficulty = difficulty;
     }
 
     public void setWeight(double weight) {
+        checkNotFrozen();
         this.weight = weight;
     }
 
@@ -83,11 +134,54 @@ public class TextSnippet implements Weightable {
     }
 
     public void addCategory(Category category) {
+        checkNotFrozen();
         categories.add(category);
+        updateCategoryMasks();
     }
 
     public void removeCategory(Category category) {
+        checkNotFrozen();
         categories.remove(category);
+        updateCategoryMasks();
+    }
+
+    public Set<Category> getDerivedCategories() {
+        return derivedCategories;
+    }
+
+    public CategoryMask getCategoryMask() {
+        return categoryMask;
+    }
+
+    /**
+     * @return The combined antisynergies of all categories of this snippet.
+     */
+    public CategoryMask getAntisynergyMask() {
+        return antisynergyMask;
+    }
+
+    public CategoryMask getDerivedCategoryMask() {
+        return derivedCategoryMask;
+    }
+
+    /**
+     * @return The ids of the tags of this snippet, assigned by the compiled configuration the snippet is part of.
+     */
+    BitSet getTagMask() {
+        return tagMask;
+    }
+
+    void setTagMask(BitSet tagMask) {
+        this.tagMask = tagMask;
+    }
+
+    void updateCategoryMasks() {
+        categoryMask = new CategoryMask(categories);
+        derivedCategoryMask = new CategoryMask(derivedCategories);
+        antisynergyMask = new CategoryMask();
+        for (Category category : categories) {
+            antisynergyMask.addAll(category.getAntisynergyMask());
+        }
     }
 
     public String getTooltip() {
@@ -98,15 +192,15 @@ public class TextSnippet implements Weightable {
         return tags;
     }
 
-    public boolean matchesCondition(String condition, String textSoFar) {
+    public boolean matchesCondition(String condition, CharSequence textSoFar) {
         if (condition == null) return true;
 
         switch (condition) {
-            case "avoid_duplicates":
-                return !textSoFar.contains(text);
+            case CONDITION_AVOID_DUPLICATES:
+                return !containsText(textSoFar, text);
         }
 
-        Matcher matcher = Pattern.compile("^([a-zA-Z0-9!]+)(?:\\((.*)\\))?$").matcher(condition);
+        Matcher matcher = CONDITION_PATTERN.matcher(condition);
         if (!matcher.matches()) {
             LOG.warn("Invalid condition [{}] on [{}]", condition, text);
             return true;
@@ -131,6 +225,17 @@ public class TextSnippet implements Weightable {
         return true;
     }
 
+    boolean isContainedIn(CharSequence textSoFar) {
+        return containsText(textSoFar, text);
+    }
+
+    private static boolean containsText(CharSequence textSoFar, String text) {
+        if (textSoFar instanceof StringBuilder) {
+            return ((StringBuilder) textSoFar).indexOf(text) != -1;
+        }
+        return textSoFar.toString().contains(text);
+    }
+
     @Override
     public String toString() {
         return text;
@@ -146,5 +251,9 @@ public class TextSnippet implements Weightable {
         return true;
     }
 
+    final static String CONDITION_AVOID_DUPLICATES = "avoid_duplicates";
+
+    final static Pattern CONDITION_PATTERN = Pattern.compile("^([a-zA-Z0-9!]+)(?:\\((.*)\\))?$");
+
     final static Pattern SNIPPET_PATTERN = Pattern.compile("\\[(.*?)]");
 }
@@ -0,0 +1,182 @@
+package de.yanwittmann.bingo.generator;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A tile generator or text snippet text that has been split into literal text and placeholder nodes.<br>
+ * Templates are compiled once when the configuration is loaded, so that expanding a text only has to walk the nodes
+ * instead of re-matching and re-replacing the placeholders on every generated tile.
+ */
+public class TextTemplate {
+
+    private final String source;
+    private final List<Node> nodes;
+
+    private TextTemplate(String source, List<Node> nodes) {
+        this.source = source;
+        this.nodes = Collections.unmodifiableList(nodes);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    List<Node> getNodes() {
+        return nodes;
+    }
+
+    public static TextTemplate compile(String text, Map<String, List<TextSnippet>> textSnippets, Map<String, ValueProvider> valueProviders) {
+        List<Node> nodes = new ArrayList<>();
+        if (text == null) return new TextTemplate(null, nodes);
+
+        Matcher snippetsMatcher = TextSnippet.SNIPPET_PATTERN.matcher(text);
+        int lastEnd = 0;
+        while (snippetsMatcher.find()) {
+            if (snippetsMatcher.start() > lastEnd) {
+                nodes.add(new LiteralNode(text.substring(lastEnd, snippetsMatcher.start())));
+            }
+            nodes.add(compilePlaceholder(snippetsMatcher.group(), snippetsMatcher.group(1), textSnippets, valueProviders));
+            lastEnd = snippetsMatcher.end();
+        }
+        if (lastEnd < text.length()) {
+            nodes.add(new LiteralNode(text.substring(lastEnd)));
+        }
+
+        return new TextTemplate(text, nodes);
+    }
+
+    private static Node compilePlaceholder(String placeholder, String content, Map<String, List<TextSnippet>> textSnippets, Map<String, ValueProvider> valueProviders) {
+        String[] parts = content.split(":");
+        String snippetType = parts[0];
+
+        if (textSnippets.containsKey(snippetType)) {
+            // check if some conditions are actually snippet types
+            List<String> snippetTypes = new ArrayList<>();
+            List<String> conditions = new ArrayList<>();
+            snippetTypes.add(snippetType);
+            for (int i = 1; i < parts.length; i++) {
+                String condition = parts[i];
+                if (!condition.contains("(") && textSnippets.containsKey(condition)) {
+                    snippetTypes.add(condition);
+                } else {
+                    conditions.add(condition);
+                }
+            }
+            return new SnippetNode(snippetTypes, conditions);
+        }
+
+        // check if it is a value provider or a random number generator
+        ValueProvider valueProvider = valueProviders.get(snippetType);
+        if (valueProvider != null) {
+            return new ValueProviderNode(placeholder, valueProvider);
+        }
+
+        Matcher rangeMatcher = RANGE_PATTERN.matcher(snippetType);
+        if (rangeMatcher.matches()) {
+            return new RangeNode(Integer.parseInt(rangeMatcher.group(1)), Integer.parseInt(rangeMatcher.group(2)));
+        }
+
+        // unknown placeholders are kept as they are
+        return new LiteralNode(placeholder);
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    private final static Pattern RANGE_PATTERN = Pattern.compile("(-?\\d+)-(-?\\d+)");
+
+    static abstract class Node {
+    }
+
+    static class LiteralNode extends Node {
+        private final String text;
+
+        LiteralNode(String text) {
+            this.text = text;
+        }
+
+        String getText() {
+            return text;
+        }
+    }
+
+    static class SnippetNode extends Node {
+        private final List<String> snippetTypes;
+        private final List<String> conditions;
+        private final boolean textDependent;
+        private SnippetSelector selector;
+
+        SnippetNode(List<String> snippetTypes, List<String> conditions) {
+            this.snippetTypes = Collections.unmodifiableList(snippetTypes);
+            this.conditions = Collections.unmodifiableList(conditions);
+            this.textDependent = conditions.contains(TextSnippet.CONDITION_AVOID_DUPLICATES);
+        }
+
+        List<String> getSnippetTypes() {
+            return snippetTypes;
+        }
+
+        List<String> getConditions() {
+            return conditions;
+        }
+
+        /**
+         * @return The snippets this placeholder can be replaced with, or <code>null</code> if the template is not
+         * part of a compiled configuration.
+         */
+        SnippetSelector getSelector() {
+            return selector;
+        }
+
+        void setSelector(SnippetSelector selector) {
+            this.selector = selector;
+        }
+
+        /**
+         * @return Whether the conditions depend on the text that has been generated so far, which means that the
+         * candidate snippets cannot be cached.
+         */
+        boolean isTextDependent() {
+            return textDependent;
+        }
+    }
+
+    static class ValueProviderNode extends Node {
+        private final String placeholder;
+        private final ValueProvider valueProvider;
+
+        ValueProviderNode(String placeholder, ValueProvider valueProvider) {
+            this.placeholder = placeholder;
+            this.valueProvider = valueProvider;
+        }
+
+        String getPlaceholder() {
+            return placeholder;
+        }
+
+        ValueProvider getValueProvider() {
+            return valueProvider;
+        }
+    }
+
+    static class RangeNode extends Node {
+        private final int min, max;
+
+        RangeNode(int min, int max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        int getMin() {
+            return min;
+        }
+
+        int getMax() {
+            return max;
+        }
+    }
+}
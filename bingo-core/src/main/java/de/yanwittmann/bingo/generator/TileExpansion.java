@@ -0,0 +1,49 @@
+package de.yanwittmann.bingo.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the text, difficulty, categories and tooltips while a {@link TextTemplate} is expanded into a tile.<br>
+ * An expansion is {@link #reset(double) reset} and reused for every attempt, so expanding a template only creates
+ * objects when one of the buffers has to grow.
+ */
+class TileExpansion {
+
+    final StringBuilder text = new StringBuilder();
+    final List<Category> categories = new ArrayList<>();
+    final CategoryMask categoryMask = new CategoryMask();
+    final CategoryMask antisynergyMask = new CategoryMask();
+    final StringBuilder tooltips = new StringBuilder();
+    private int tooltipCount;
+    double difficulty;
+
+    TileExpansion reset(double difficulty) {
+        text.setLength(0);
+        categories.clear();
+        categoryMask.clear();
+        antisynergyMask.clear();
+        tooltips.setLength(0);
+        tooltipCount = 0;
+        this.difficulty = difficulty;
+        return this;
+    }
+
+    void addCategories(TextSnippet snippet) {
+        List<Category> snippetCategories = snippet.getCategories();
+        for (int i = 0; i < snippetCategories.size(); i++) {
+            Category category = snippetCategories.get(i);
+            // the categories of a compiled configuration all have an id, the list only keeps the order
+            if (category.getId() >= 0 ? !categoryMask.contains(category) : !categories.contains(category)) {
+                categories.add(category);
+            }
+            categoryMask.add(category);
+        }
+        antisynergyMask.addAll(snippet.getAntisynergyMask());
+    }
+
+    void addTooltip(String tooltip) {
+        if (tooltipCount++ > 0) tooltips.append('\n');
+        tooltips.append(tooltip);
+    }
+}
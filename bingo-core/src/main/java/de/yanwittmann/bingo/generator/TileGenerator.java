@@ -3,7 +3,8 @@ package de.yanwittmann.bingo.generator;
 import de.yanwittmann.bingo.interfaces.Weightable;
 
 import java.util.*;
-import java.util.regex.Matcher;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class TileGenerator implements Weightable {
 
@@ -13,9 +14,22 @@ public class TileGenerator implements Weightable {
     private double weight;
     private final List<Category> categories;
     private final List<String> difficulties;
-    private final Set<Category> derivedCategories;
+    private Set<Category> derivedCategories;
+    private TextTemplate template;
+    private CategoryMask categoryMask = new CategoryMask();
+    private CategoryMask derivedCategoryMask = new CategoryMask();
+    private CategoryMask antisynergyMask = new CategoryMask();
+    private boolean frozen = false;
 
     public TileGenerator(Map<String, Object> optionMap, List<Category> categories, Map<String, List<TextSnippet>> textSnippets) {
+        this(optionMap, new CategoryRegistry(categories), textSnippets);
+    }
+
+    public TileGenerator(Map<String, Object> optionMap, CategoryRegistry categories, Map<String, List<TextSnippet>> textSnippets) {
+        this(optionMap, categories, new SnippetGraph(textSnippets));
+    }
+
+    TileGenerator(Map<String, Object> optionMap, CategoryRegistry categories, SnippetGraph snippetGraph) {
         this.text = (String) optionMap.get(BingoConfiguration.KEY_TILE_GENERATOR_TEXT);
         this.tooltip = (String) optionMap.getOrDefault(BingoConfiguration.KEY_TILE_GENERATOR_TOOLTIP, null);
         this.difficulty = Double.parseDouble(String.valueOf(optionMap.getOrDefault(BingoConfiguration.KEY_TILE_GENERATOR_DIFFICULTY, 0)));
@@ -23,43 +37,84 @@ public class TileGenerator implements Weightable {
         this.weight = Double.parseDouble(String.valueOf(optionMap.getOrDefault(BingoConfiguration.KEY_TILE_GENERATOR_WEIGHT, 1)));
         this.categories = new ArrayList<>();
         Category.createCategories((List<String>) optionMap.getOrDefault(BingoConfiguration.KEY_TILE_GENERATOR_CATEGORIES, Collections.emptyList()), categories, this.categories, text);
-        this.derivedCategories = new HashSet<>();
-        deriveSnippetCategories(text, textSnippets);
-    }
-
-    private void deriveSnippetCategories(String text, Map<String, List<TextSnippet>> textSnippets) {
-        boolean found;
-        do {
-            found = false;
-            Matcher snippetsMatcher = TextSnippet.SNIPPET_PATTERN.matcher(text);
-            while (snippetsMatcher.find()) {
-                String snippetType = snippetsMatcher.group(1);
-                List<TextSnippet> snippets = textSnippets.get(snippetType);
-                if (snippets != null && snippets.size() > 0) {
-                    for (TextSnippet snippet : snippets) {
-                        for (Category category : snippet.getCategories()) {
-                            if (derivedCategories.add(category)) {
-                                deriveSnippetCategories(snippet.getText(), textSnippets);
-                            }
-                        }
-                    }
-                    found = true;
-                }
-                text = text.replace(snippetType, "");
-            }
-        } while (found);
+        this.derivedCategories = snippetGraph.getDerivedCategories(text);
+    }
+
+    /**
+     * Creates a generator from values that were already validated and derived, used when loading a cached
+     * configuration.
+     */
+    TileGenerator(String text, String tooltip, double difficulty, double weight, List<String> difficulties, List<Category> categories, Set<Category> derivedCategories) {
+        this.text = text;
+        this.tooltip = tooltip;
+        this.difficulty = difficulty;
+        this.weight = weight;
+        this.difficulties = difficulties;
+        this.categories = categories;
+        this.derivedCategories = derivedCategories;
+    }
+
+    /**
+     * Creates a frozen copy of the given generator for a compiled configuration.
+     */
+    TileGenerator(TileGenerator source, Function<Category, Category> categoryCopies) {
+        this.text = source.text;
+        this.tooltip = source.tooltip;
+        this.difficulty = source.difficulty;
+        this.difficulties = Collections.unmodifiableList(new ArrayList<>(source.difficulties));
+        this.weight = source.weight;
+        this.categories = Collections.unmodifiableList(source.categories.stream().map(categoryCopies).collect(Collectors.toList()));
+        this.derivedCategories = Collections.unmodifiableSet(new LinkedHashSet<>(source.derivedCategories.stream().map(categoryCopies).collect(Collectors.toList())));
+        updateCategoryMasks();
+        categoryMask.freeze();
+        derivedCategoryMask.freeze();
+        antisynergyMask.freeze();
+        this.frozen = true;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Tile generator [" + text + "] is part of a compiled configuration and cannot be modified");
+        }
     }
 
     public boolean containsAnyCategory(Collection<Category> categories) {
         return this.categories.stream().anyMatch(categories::contains);
     }
 
+    public boolean containsAnyCategory(CategoryMask categories) {
+        return categoryMask.intersects(categories);
+    }
+
+    public boolean containsAnyDerivedCategory(CategoryMask categories) {
+        return derivedCategoryMask.intersects(categories);
+    }
+
+    void updateCategoryMasks() {
+        categoryMask = new CategoryMask(categories);
+        derivedCategoryMask = new CategoryMask(derivedCategories);
+        antisynergyMask = new CategoryMask();
+        for (Category category : categories) {
+            antisynergyMask.addAll(category.getAntisynergyMask());
+        }
+    }
+
     public String getText() {
         return text;
     }
 
     public void setText(String text) {
+        checkNotFrozen();
         this.text = text;
+        this.template = null;
+    }
+
+    public TextTemplate getTemplate() {
+        return template;
+    }
+
+    void setTemplate(TextTemplate template) {
+        this.template = template;
     }
 
     public double getDifficulty() {
@@ -67,6 +122,7 @@ public class TileGenerator implements Weightable {
     }
 
     public void setDifficulty(double difficulty) {
+        checkNotFrozen();
         this.difficulty = difficulty;
     }
 
@@ -75,6 +131,7 @@ public class TileGenerator implements Weightable {
     }
 
     public void setWeight(double weight) {
+        checkNotFrozen();
         this.weight = weight;
     }
 
@@ -83,17 +140,35 @@ public class TileGenerator implements Weightable {
     }
 
     public void addCategory(Category category) {
+        checkNotFrozen();
         this.categories.add(category);
+        this.categoryMask.add(category);
+        this.antisynergyMask.addAll(category.getAntisynergyMask());
     }
 
     public void addCategory(String category) {
-        this.categories.add(new Category(category));
+        addCategory(new Category(category));
     }
 
     public Set<Category> getDerivedCategories() {
         return derivedCategories;
     }
 
+    public CategoryMask getCategoryMask() {
+        return categoryMask;
+    }
+
+    public CategoryMask getDerivedCategoryMask() {
+        return derivedCategoryMask;
+    }
+
+    /**
+     * @return The combined antisynergies of all categories of this generator.
+     */
+    public CategoryMask getAntisynergyMask() {
+        return antisynergyMask;
+    }
+
     public List<String> getDifficulties() {
         return difficulties;
     }
@@ -1,7 +1,10 @@
 package de.yanwittmann.bingo.generator;
 
+import de.yanwittmann.bingo.interfaces.RandomSource;
+
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
 
 public class ValueProvider {
     private final Map<String, NumberProvider> difficultyProviders = new HashMap<>();
@@ -12,8 +15,27 @@ public class ValueProvider {
         }
     }
 
+    ValueProvider() {
+    }
+
+    Map<String, NumberProvider> getDifficultyProviders() {
+        return difficultyProviders;
+    }
+
     public NumberProviderResult getValue(String difficulty) {
-        return difficultyProviders.get(difficulty).getValue();
+        return getValue(difficulty, RandomSource.create());
+    }
+
+    public NumberProviderResult getValue(String difficulty, Random random) {
+        return getValue(difficulty, RandomSource.of(random));
+    }
+
+    public NumberProviderResult getValue(String difficulty, RandomSource random) {
+        return difficultyProviders.get(difficulty).getValue(random);
+    }
+
+    NumberProvider getProvider(String difficulty) {
+        return difficultyProviders.get(difficulty);
     }
 
     public static boolean validate(Map<String, Object> optionMap) {
@@ -29,19 +51,29 @@ public class ValueProvider {
         return true;
     }
 
-    private static class NumberProvider {
+    static class NumberProvider {
         private final int min, max;
         private final double score;
 
+        NumberProvider(int min, int max, double score) {
+            this.min = min;
+            this.max = max;
+            this.score = score;
+        }
+
         public NumberProvider(Map<String, Object> optionMap) {
             this.min = (int) optionMap.get(BingoConfiguration.KEY_VALUE_PROVIDERS_MIN);
             this.max = (int) optionMap.get(BingoConfiguration.KEY_VALUE_PROVIDERS_MAX);
             this.score = Double.parseDouble(String.valueOf(optionMap.getOrDefault(BingoConfiguration.KEY_VALUE_PROVIDERS_SCORE, 1)));
         }
 
-        public NumberProviderResult getValue() {
-            double random = Math.round(Math.random() * (max - min) + min);
-            return new NumberProviderResult((int) (random), score);
+        public NumberProviderResult getValue(RandomSource random) {
+            return new NumberProviderResult(nextValue(random), score);
+        }
+
+        int nextValue(RandomSource random) {
+            double value = Math.round(random.nextDouble() * (max - min) + min);
+            return (int) (value);
         }
 
         public int getMin() {
@@ -0,0 +1,107 @@
+package de.yanwittmann.bingo.generator;
+
+import de.yanwittmann.bingo.interfaces.RandomSource;
+import de.yanwittmann.bingo.interfaces.Weightable;
+
+import java.util.*;
+
+/**
+ * Draws weighted random elements from a fixed list of {@link Weightable}s.<br>
+ * The cumulative weights are calculated once when the sampler is created, a draw is a binary search over them.
+ *
+ * @param <T> The type of the elements to draw.
+ */
+public class WeightedSampler<T extends Weightable> {
+
+    private final List<T> elements;
+    private final double[] cumulativeWeights;
+    private final double totalWeight;
+
+    public WeightedSampler(Collection<T> elements) {
+        this.elements = Collections.unmodifiableList(new ArrayList<>(elements));
+        this.cumulativeWeights = new double[this.elements.size()];
+        double currentWeight = 0;
+        for (int i = 0; i < this.elements.size(); i++) {
+            currentWeight += this.elements.get(i).getWeight();
+            cumulativeWeights[i] = currentWeight;
+        }
+        this.totalWeight = currentWeight;
+    }
+
+    public T sample(Random random) {
+        return sample(RandomSource.of(random));
+    }
+
+    public T sample(RandomSource random) {
+        if (elements.isEmpty()) return null;
+        double randomValue = random.nextDouble() * totalWeight;
+
+        // find the first element whose cumulative weight reaches the random value
+        int low = 0, high = cumulativeWeights.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulativeWeights[mid] >= randomValue) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return elements.get(low);
+    }
+
+    /**
+     * Draws a weighted random element from a collection without preparing a sampler first, which is cheaper if the
+     * collection is only used once.
+     */
+    public static <T extends Weightable> T sample(Collection<T> collection, Random random) {
+        return sample(collection, RandomSource.of(random));
+    }
+
+    public static <T extends Weightable> T sample(Collection<T> collection, RandomSource random) {
+        double totalWeight = 0;
+        for (T weightable : collection) {
+            totalWeight += weightable.getWeight();
+        }
+        double randomValue = random.nextDouble() * totalWeight;
+        double currentWeight = 0;
+        for (T weightable : collection) {
+            currentWeight += weightable.getWeight();
+            if (currentWeight >= randomValue) {
+                return weightable;
+            }
+        }
+        return collection.stream().findAny().orElse(null);
+    }
+
+    /**
+     * Same as {@link #sample(Collection, RandomSource)}, but iterates the list by index.
+     */
+    public static <T extends Weightable> T sample(List<T> list, RandomSource random) {
+        int size = list.size();
+        double totalWeight = 0;
+        for (int i = 0; i < size; i++) {
+            totalWeight += list.get(i).getWeight();
+        }
+        double randomValue = random.nextDouble() * totalWeight;
+        double currentWeight = 0;
+        for (int i = 0; i < size; i++) {
+            currentWeight += list.get(i).getWeight();
+            if (currentWeight >= randomValue) {
+                return list.get(i);
+            }
+        }
+        return size == 0 ? null : list.get(0);
+    }
+
+    public List<T> getElements() {
+        return elements;
+    }
+
+    public int size() {
+        return elements.size();
+    }
+
+    public boolean isEmpty() {
+        return elements.isEmpty();
+    }
+}
@@ -0,0 +1,44 @@
+package de.yanwittmann.bingo.interfaces;
+
+import de.yanwittmann.bingo.generator.JavaRandomSource;
+import de.yanwittmann.bingo.generator.SplittableRandomSource;
+
+import java.util.Random;
+
+/**
+ * The source of all random decisions made while generating a board.<br>
+ * Implementations are not required to be thread-safe. Every thread should work on its own source, which can be
+ * created using {@link #split()}.
+ */
+public interface RandomSource {
+
+    /**
+     * @return A random value between <code>0</code> (inclusive) and <code>bound</code> (exclusive).
+     */
+    int nextInt(int bound);
+
+    /**
+     * @return A random value between <code>0.0</code> (inclusive) and <code>1.0</code> (exclusive).
+     */
+    double nextDouble();
+
+    long nextLong();
+
+    /**
+     * Creates a new independent source from this one. The state of this source is advanced, so splitting the same
+     * source multiple times results in different sources.
+     */
+    RandomSource split();
+
+    static RandomSource create() {
+        return new SplittableRandomSource();
+    }
+
+    static RandomSource create(long seed) {
+        return new SplittableRandomSource(seed);
+    }
+
+    static RandomSource of(Random random) {
+        return new JavaRandomSource(random);
+    }
+}
@@ -0,0 +1,207 @@
+package de.yanwittmann.bingo.generator;
+
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The flight recorder events of {@link GenerationEvents}, loaded by name so that the rest of the project can still be
+ * used on Java 8.<br>
+ * The tile events are disabled by default, as a board consists of hundreds of them. They can be enabled in the settings
+ * of a recording with <code>de.yanwittmann.bingo.TileGeneration#enabled=true</code>.
+ */
+class FlightRecorderGenerationEvents extends GenerationEvents {
+
+    @Override
+    public boolean isAvailable() {
+        return FlightRecorder.isAvailable();
+    }
+
+    @Override
+    public Object beginBoard() {
+        BoardGenerationEvent event = new BoardGenerationEvent();
+        if (!event.isEnabled()) return null;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitBoard(Object started, int width, int height, double difficulty, String configuration,
+                            int attempts, int maxAttempts, StopReason stopReason, double averageDifficulty, int layoutScore) {
+        if (started == null) return;
+        BoardGenerationEvent event = (BoardGenerationEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.width = width;
+            event.height = height;
+            event.difficulty = difficulty;
+            event.configuration = configuration;
+            event.attempts = attempts;
+            event.maxAttempts = maxAttempts;
+            event.stopReason = stopReason.name();
+            event.averageDifficulty = averageDifficulty;
+            event.layoutScore = layoutScore;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginTileReplacement() {
+        TileReplacementEvent event = new TileReplacementEvent();
+        if (!event.isEnabled()) return null;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitTileReplacement(Object started, int width, int height, double difficulty, String configuration,
+                                      int iterations, double averageDifficulty) {
+        if (started == null) return;
+        TileReplacementEvent event = (TileReplacementEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.width = width;
+            event.height = height;
+            event.difficulty = difficulty;
+            event.configuration = configuration;
+            event.iterations = iterations;
+            event.averageDifficulty = averageDifficulty;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginTile() {
+        TileGenerationEvent event = new TileGenerationEvent();
+        if (!event.isEnabled()) return null;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitTile(Object started, double difficulty, String configuration, int retries, double tileDifficulty) {
+        if (started == null) return;
+        TileGenerationEvent event = (TileGenerationEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.difficulty = difficulty;
+            event.configuration = configuration;
+            event.retries = retries;
+            event.tileDifficulty = tileDifficulty;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginPopulate() {
+        PopulateEvent event = new PopulateEvent();
+        if (!event.isEnabled()) return null;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitPopulate(Object started, int width, int height, double difficulty, String configuration,
+                               int tiles, StopReason stopReason, int layoutScore) {
+        if (started == null) return;
+        PopulateEvent event = (PopulateEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.width = width;
+            event.height = height;
+            event.difficulty = difficulty;
+            event.configuration = configuration;
+            event.tiles = tiles;
+            event.stopReason = stopReason.name();
+            event.layoutScore = layoutScore;
+            event.commit();
+        }
+    }
+
+    @Name("de.yanwittmann.bingo.BoardGeneration")
+    @Label("Board Generation")
+    @jdk.jfr.Category("Bingo")
+    @Description("Generation of a complete board, including the placement of the tiles")
+    static class BoardGenerationEvent extends Event {
+        @Label("Width")
+        int width;
+        @Label("Height")
+        int height;
+        @Label("Destination Difficulty")
+        double difficulty;
+        @Label("Configuration")
+        String configuration;
+        @Label("Attempts")
+        @Description("The optimization attempts that were run, annealing counts every replaced tile")
+        int attempts;
+        @Label("Maximum Attempts")
+        @Description("The optimization attempts that were allowed")
+        int maxAttempts;
+        @Label("Stop Reason")
+        String stopReason;
+        @Label("Average Difficulty")
+        double averageDifficulty;
+        @Label("Layout Score")
+        int layoutScore;
+    }
+
+    @Name("de.yanwittmann.bingo.TileReplacement")
+    @Label("Tile Replacement")
+    @jdk.jfr.Category("Bingo")
+    @Description("One round of filling the board and replacing tiles to get closer to the destination difficulty")
+    static class TileReplacementEvent extends Event {
+        @Label("Width")
+        int width;
+        @Label("Height")
+        int height;
+        @Label("Destination Difficulty")
+        double difficulty;
+        @Label("Configuration")
+        String configuration;
+        @Label("Iterations")
+        int iterations;
+        @Label("Average Difficulty")
+        double averageDifficulty;
+    }
+
+    @Name("de.yanwittmann.bingo.TileGeneration")
+    @Label("Tile Generation")
+    @jdk.jfr.Category("Bingo")
+    @Description("Generation of a single tile")
+    @Enabled(false)
+    static class TileGenerationEvent extends Event {
+        @Label("Destination Difficulty")
+        double difficulty;
+        @Label("Configuration")
+        String configuration;
+        @Label("Retries")
+        @Description("Texts that were discarded as duplicates or for antisynergies")
+        int retries;
+        @Label("Tile Difficulty")
+        double tileDifficulty;
+    }
+
+    @Name("de.yanwittmann.bingo.Populate")
+    @Label("Populate")
+    @jdk.jfr.Category("Bingo")
+    @Description("Placement of the tiles on the board")
+    static class PopulateEvent extends Event {
+        @Label("Width")
+        int width;
+        @Label("Height")
+        int height;
+        @Label("Difficulty")
+        double difficulty;
+        @Label("Configuration")
+        String configuration;
+        @Label("Tiles")
+        int tiles;
+        @Label("Stop Reason")
+        String stopReason;
+        @Label("Layout Score")
+        int layoutScore;
+    }
+}
@@ -0,0 +1,65 @@
+package de.yanwittmann.bingo;
+
+import de.yanwittmann.bingo.generator.BingoConfiguration;
+import de.yanwittmann.bingo.generator.BingoGenerator;
+import de.yanwittmann.bingo.generator.CompiledBingoConfiguration;
+import de.yanwittmann.bingo.interfaces.RandomSource;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SwapScorerTest {
+
+    @Test
+    void incrementalScoreMatchesFullScoreTest() throws FileNotFoundException {
+        BingoConfiguration configuration = new BingoConfiguration(new File("src/test/resources/bingo/generate/outer_wilds.yaml"));
+        CompiledBingoConfiguration compiled = configuration.getCompiledConfiguration();
+        BingoGenerator generator = new BingoGenerator(compiled);
+        generator.setMaxGenerationAttempts(1);
+        generator.setDifficultyLevel("Normal");
+
+        int[][] sizes = {{5, 5}, {7, 4}, {3, 8}, {10, 10}};
+        for (int[] size : sizes) {
+            generator.setWidth(size[0]);
+            generator.setHeight(size[1]);
+            BingoBoard board = generator.generateBingoBoard(RandomSource.create(size[0] * 31 + size[1]));
+            List<BingoTile> tiles = new ArrayList<>();
+            for (int x = 0; x < size[0]; x++) {
+                for (int y = 0; y < size[1]; y++) {
+                    tiles.add(board.get(x, y));
+                }
+            }
+
+            LayoutScorer scorer = new LayoutScorer(BoardGeometry.of(size[0], size[1]), compiled.getCategoryRelations(), tiles);
+            RandomSource random = RandomSource.create(size[0] * size[1]);
+            scorer.shuffle(random);
+            SwapScorer swapScorer = new SwapScorer(scorer);
+            assertEquals(scorer.score(), swapScorer.getScore());
+
+            int accepted = 0;
+            for (int i = 0; i < 2000; i++) {
+                int a = random.nextInt(tiles.size());
+                int b = random.nextInt(tiles.size() - 1);
+                if (b >= a) b++;
+                int score = swapScorer.getScore();
+                int delta = swapScorer.swap(a, b);
+                assertEquals(scorer.score(), score + delta, "Swap of " + a + " and " + b + " on " + size[0] + "x" + size[1]);
+                // worse swaps are accepted as well every now and then, to also test them
+                if (delta >= 0 || i % 3 == 0) {
+                    swapScorer.accept();
+                    accepted++;
+                } else {
+                    swapScorer.revert();
+                }
+                assertEquals(scorer.score(), swapScorer.getScore(), "Swap of " + a + " and " + b + " on " + size[0] + "x" + size[1]);
+            }
+            assertTrue(accepted > 0);
+        }
+    }
+}
@@ -1,14 +1,34 @@
 package de.yanwittmann.bingo.generator;
 
 import de.yanwittmann.bingo.BingoBoard;
+import de.yanwittmann.bingo.BingoTile;
+import de.yanwittmann.bingo.interfaces.RandomSource;
 import org.apache.commons.io.FileUtils;
 import org.json.JSONObject;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 class BingoGeneratorTest {
 
@@ -24,10 +44,470 @@ class BingoGeneratorTest {
         System.out.println(bingoBoard.toJson());
     }
 
+    @Test
+    void defaultModesAreTheOriginalAlgorithmsTest() throws FileNotFoundException {
+        BingoConfiguration configuration = new BingoConfiguration(new File("src/test/resources/bingo/generate/outer_wilds.yaml"));
+        BingoGenerator generator = new BingoGenerator(configuration);
+        generator.setWidth(4);
+        generator.setHeight(4);
+        generator.setMaxGenerationAttempts(3);
+        generator.setDifficultyLevel("Normal");
+        assertEquals(OptimizationMode.CREATE_AND_REMOVE, generator.getOptimizationMode());
+        assertEquals(LayoutMode.SHUFFLE, generator.getLayoutMode());
+        assertEquals(LayoutMode.SHUFFLE, new BingoBoard(4, 4).getLayoutMode());
+
+        String defaultBoard = generator.generateBingoBoard(RandomSource.create(5)).toJson().toString();
+        generator.setOptimizationMode(OptimizationMode.CREATE_AND_REMOVE);
+        generator.setLayoutMode(LayoutMode.SHUFFLE);
+        assertEquals(defaultBoard, generator.generateBingoBoard(RandomSource.create(5)).toJson().toString());
+    }
+
+    @Test
+    void batchGenerationIsDeterministicTest() throws FileNotFoundException {
+        BingoConfiguration configuration = new BingoConfiguration(new File("src/test/resources/bingo/generate/outer_wilds.yaml"));
+        BingoGenerator generator = new BingoGenerator(configuration);
+        generator.setWidth(4);
+        generator.setHeight(4);
+        generator.setMaxGenerationAttempts(2);
+        generator.setDifficultyLevel("Normal");
+
+        ForkJoinPool parallelPool = new ForkJoinPool(4);
+        ForkJoinPool serialPool = new ForkJoinPool(1);
+        List<BingoBoard> parallelBoards, serialBoards;
+        try {
+            parallelBoards = generator.generateBingoBoards(42, 6, parallelPool);
+            serialBoards = generator.generateBingoBoards(42, 6, serialPool);
+        } finally {
+            parallelPool.shutdown();
+            serialPool.shutdown();
+        }
+        assertEquals(6, parallelBoards.size());
+        for (int i = 0; i < parallelBoards.size(); i++) {
+            assertEquals(serialBoards.get(i).toJson().toString(), parallelBoards.get(i).toJson().toString());
+        }
+        assertEquals(generator.generateBingoBoard(42, 3).toJson().toString(), parallelBoards.get(3).toJson().toString());
+    }
+
+    @Test
+    void parallelLayoutIsDeterministicTest() throws FileNotFoundException {
+        BingoConfiguration configuration = new BingoConfiguration(new File("src/test/resources/bingo/generate/outer_wilds.yaml"));
+        BingoGenerator generator = new BingoGenerator(configuration);
+        generator.setWidth(6);
+        generator.setHeight(6);
+        generator.setMaxGenerationAttempts(1);
+        generator.setDifficultyLevel("Normal");
+
+        ForkJoinPool parallelPool = new ForkJoinPool(4);
+        ForkJoinPool serialPool = new ForkJoinPool(1);
+        try {
+            for (LayoutMode layoutMode : LayoutMode.values()) {
+                generator.setLayoutMode(layoutMode);
+                generator.setLayoutPool(parallelPool);
+                String parallelBoard = generator.generateBingoBoard(RandomSource.create(7)).toJson().toString();
+                generator.setLayoutPool(serialPool);
+                String serialBoard = generator.generateBingoBoard(RandomSource.create(7)).toJson().toString();
+                assertEquals(serialBoard, parallelBoard);
+            }
+        } finally {
+            parallelPool.shutdown();
+            serialPool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelLayoutIsAtLeastAsGoodAsSerialTest() throws FileNotFoundException {
+        BingoConfiguration configuration = new BingoConfiguration(new File("src/test/resources/bingo/generate/outer_wilds.yaml"));
+        BingoGenerator generator = new BingoGenerator(configuration);
+        generator.setWidth(10);
+        generator.setHeight(10);
+        generator.setMaxGenerationAttempts(1);
+        generator.setDifficultyLevel("Normal");
+        generator.setLayoutMode(LayoutMode.SWAP);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int seed = 0; seed < 10; seed++) {
+                generator.setLayoutPool(null);
+                BingoBoard serialBoard = generator.generateBingoBoard(RandomSource.create(seed));
+                generator.setLayoutPool(pool);
+                BingoBoard parallelBoard = generator.generateBingoBoard(RandomSource.create(seed));
+                assertTrue(parallelBoard.getLayoutScore() >= serialBoard.getLayoutScore(),
+                        "Seed " + seed + ": " + parallelBoard.getLayoutScore() + " < " + serialBoard.getLayoutScore());
+                assertTrue(serialBoard.getLayoutIterations() <= generator.getMaxLayoutIterations());
+                assertTrue(parallelBoard.getLayoutIterations() > serialBoard.getLayoutIterations());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void generationStopsAtDeadlineTest() throws FileNotFoundException {
+        BingoConfiguration configuration = new BingoConfiguration(new File("src/test/resources/bingo/generate/outer_wilds.yaml"));
+        BingoGenerator generator = new BingoGenerator(configuration);
+        generator.setWidth(10);
+        generator.setHeight(10);
+        generator.setDifficultyLevel("Normal");
+        generator.setOptimizationMode(OptimizationMode.CREATE_AND_REMOVE);
+        generator.setDifficultyTolerance(0);
+
+        // every look at the clock takes a millisecond, so the deadline does not depend on how fast the test runs
+        AtomicLong time = new AtomicLong();
+        Deadline.setClock(() -> time.addAndGet(Duration.ofMillis(1).toNanos()));
+        try {
+            GenerationResult result = generator.generate(RandomSource.create(42), Duration.ofMillis(200));
+            assertEquals(StopReason.DEADLINE, result.getStopReason());
+            assertTrue(result.getElapsedNanos() > Duration.ofMillis(200).toNanos(), result.toString());
+            assertTrue(result.getBoard().getLayoutIterations() < 1000, String.valueOf(result.getBoard().getLayoutIterations()));
+            assertEquals(10, result.getBoard().getBoardTilesJson().length());
+
+            time.set(0);
+            assertEquals(result.getBoard().toJson().toString(), generator.generate(RandomSource.create(42), Duration.ofMillis(200)).getBoard().toJson().toString());
+        } finally {
+            Deadline.setClock(null);
+        }
+    }
+
+    @Test
+    void createAndRemoveOnlyStopsAtExplicitToleranceTest() throws FileNotFoundException {
+        BingoConfiguration configuration = new BingoConfiguration(new File("src/test/resources/bingo/generate/outer_wilds.yaml"));
+        BingoGenerator generator = new BingoGenerator(configuration);
+        generator.setWidth(4);
+        generator.setHeight(4);
+        generator.setMaxGenerationAttempts(3);
+        generator.setDifficultyLevel("Normal");
+        generator.setOptimizationMode(OptimizationMode.CREATE_AND_REMOVE);
+
+        assertEquals(StopReason.ATTEMPTS_EXHAUSTED, generator.generate(RandomSource.create(3), null).getStopReason());
+        generator.setDifficultyTolerance(10);
+        assertEquals(StopReason.TARGET_REACHED, generator.generate(RandomSource.create(3), null).getStopReason());
+    }
+
+    @Test
+    void configurationCacheTest(@TempDir File cacheDirectory) throws IOException {
+        File configurationFile = new File("src/test/resources/bingo/generate/outer_wilds.yaml");
+        BingoConfiguration parsed = ConfigurationCache.load(configurationFile, cacheDirectory);
+        File[] cacheFiles = cacheDirectory.listFiles();
+        assertEquals(1, cacheFiles.length);
+        BingoConfiguration cached = ConfigurationCache.load(configurationFile, cacheDirectory);
+
+        assertEquals(parsed.getCategories().toString(), cached.getCategories().toString());
+        assertEquals(parsed.getTileGenerators().toString(), cached.getTileGenerators().toString());
+        for (String difficulty : new String[]{"Easy", "Normal", "Hard"}) {
+            BingoGenerator parsedGenerator = new BingoGenerator(parsed);
+            BingoGenerator cachedGenerator = new BingoGenerator(cached);
+            parsedGenerator.setDifficultyLevel(difficulty);
+            cachedGenerator.setDifficultyLevel(difficulty);
+            assertEquals(parsedGenerator.generateBingoBoard(RandomSource.create(3)).getBoardTilesJson().toString(), cachedGenerator.generateBingoBoard(RandomSource.create(3)).getBoardTilesJson().toString());
+        }
+
+        // a damaged cache is replaced by parsing the configuration again
+        FileUtils.writeByteArrayToFile(cacheFiles[0], new byte[]{1, 2, 3});
+        assertEquals(parsed.getTileGenerators().size(), ConfigurationCache.load(configurationFile, cacheDirectory).getTileGenerators().size());
+        assertTrue(cacheFiles[0].length() > 3);
+    }
+
+    @Test
+    void configurationReloadTest(@TempDir File directory) throws IOException {
+        File configurationFile = new File(directory, "outer_wilds.yaml");
+        FileUtils.copyFile(new File("src/test/resources/bingo/generate/outer_wilds.yaml"), configurationFile);
+
+        try (ConfigurationWatcher watcher = new ConfigurationWatcher(configurationFile)) {
+            BingoGenerator generator = new BingoGenerator(watcher);
+            BingoConfiguration previous = watcher.getConfiguration();
+            assertTrue(watcher.reload());
+            assertSame(previous, watcher.getConfiguration());
+
+            String content = FileUtils.readFileToString(configurationFile, StandardCharsets.UTF_8);
+            FileUtils.writeStringToFile(configurationFile, content.replace("Land your ship on", "Park your ship on"), StandardCharsets.UTF_8);
+            assertTrue(watcher.reload());
+            BingoConfiguration reloaded = watcher.getConfiguration();
+
+            assertEquals("Land your ship on [PLANET]", previous.getTileGenerators().get(0).getText());
+            assertEquals("Park your ship on [PLANET]", reloaded.getTileGenerators().get(0).getText());
+            assertSame(reloaded.getCompiledConfiguration(), generator.getCompiledConfiguration());
+            // only the tile generators were parsed again
+            assertSame(previous.getCategories().get(0), reloaded.getCategories().get(0));
+            assertSame(previous.getTextSnippets().get("PLANET"), reloaded.getTextSnippets().get("PLANET"));
+            assertEquals(previous.getCategories().size(), reloaded.getCategories().size());
+        }
+    }
+
     @Test
     public void loadTest() throws IOException {
         BingoBoard bingoBoard = new BingoBoard(new JSONObject(String.join("", FileUtils.readLines(new File("src/test/resources/bingo/load/outer_wilds.json"), StandardCharsets.UTF_8))));
         System.out.println(bingoBoard);
         System.out.println(bingoBoard.toJson());
     }
+
+    @Test
+    void loadedBoardsShareCategoriesTest() throws IOException {
+        JSONObject json = new JSONObject(FileUtils.readFileToString(new File("src/test/resources/bingo/load/outer_wilds.json"), StandardCharsets.UTF_8));
+        CategoryRegistry registry = new CategoryRegistry();
+        BingoBoard first = new BingoBoard(json, registry);
+        BingoBoard second = new BingoBoard(json, registry);
+
+        Category category = first.get(0, 0).getCategories().get(0);
+        assertSame(category, second.get(0, 0).getCategories().get(0));
+        assertSame(category, registry.get(category.getName()));
+        assertEquals(first.getCategoryCount(), second.getCategoryCount());
+        // boards that are loaded on their own do not share their categories with anyone
+        BingoBoard separate = new BingoBoard(json);
+        assertSame(separate.get(0, 0).getCategories().get(0), separate.get(0, 0).getCategories().get(0));
+        assertNotEquals(category, separate.get(0, 0).getCategories().get(0));
+    }
+
+    @Test
+    void configurationsDoNotShareCategoriesTest() {
+        BingoConfiguration first = new BingoConfiguration(new ByteArrayInputStream(categoryYaml(2).getBytes(StandardCharsets.UTF_8)));
+        BingoConfiguration second = new BingoConfiguration(new ByteArrayInputStream(categoryYaml(5).getBytes(StandardCharsets.UTF_8)));
+        Category firstCategory = first.getCategories().get(0);
+        Category secondCategory = second.getCategories().get(0);
+
+        assertEquals(firstCategory.getName(), secondCategory.getName());
+        assertNotEquals(firstCategory, secondCategory);
+        assertEquals(2, firstCategory.getMaxAbsolute());
+        assertEquals(5, secondCategory.getMaxAbsolute());
+        assertFalse(first.getCompiledConfiguration().getCategories().contains(second.getCompiledConfiguration().getCategories().get(0)));
+    }
+
+    private static String categoryYaml(int maxAbsolute) {
+        return String.join("\n",
+                "categories:",
+                "  - categories: [ place ]",
+                "    max:",
+                "      absolute: " + maxAbsolute,
+                "tile generators:",
+                "  - text: Visit a place",
+                "    categories: [ place ]",
+                "difficulty:",
+                "  - name: Normal",
+                "    score: 1");
+    }
+
+    @Test
+    void compiledCategoryMasksAreFrozenTest() throws FileNotFoundException {
+        BingoConfiguration configuration = new BingoConfiguration(new File("src/test/resources/bingo/generate/outer_wilds.yaml"));
+        CompiledBingoConfiguration compiled = configuration.getCompiledConfiguration();
+        TileGenerator tileGenerator = compiled.getTileGenerators().get(0);
+        Category category = compiled.getCategories().get(0);
+
+        assertThrows(IllegalStateException.class, () -> tileGenerator.getCategoryMask().add(category));
+        assertThrows(IllegalStateException.class, () -> tileGenerator.getAntisynergyMask().clear());
+        assertThrows(IllegalStateException.class, () -> category.getAntisynergyMask().addAll(category.getSynergyMask()));
+        for (List<TextSnippet> snippets : compiled.getTextSnippets().values()) {
+            for (TextSnippet snippet : snippets) {
+                assertThrows(IllegalStateException.class, () -> snippet.getCategoryMask().retainAll(new CategoryMask()));
+            }
+        }
+
+        CategoryMask copy = tileGenerator.getCategoryMask().copy();
+        copy.add(category);
+        assertTrue(copy.contains(category));
+    }
+
+    @Test
+    void generatorUsesLatestCompiledConfigurationTest() throws FileNotFoundException {
+        BingoConfiguration configuration = new BingoConfiguration(new File("src/test/resources/bingo/generate/outer_wilds.yaml"));
+        BingoGenerator generator = new BingoGenerator(configuration);
+        CompiledBingoConfiguration previous = generator.getCompiledConfiguration();
+        assertSame(configuration.getCompiledConfiguration(), previous);
+
+        CompiledBingoConfiguration recompiled = configuration.compile();
+        assertSame(recompiled, generator.getCompiledConfiguration());
+
+        generator.setCompiledConfiguration(previous);
+        assertSame(previous, generator.getCompiledConfiguration());
+        configuration.compile();
+        assertSame(previous, generator.getCompiledConfiguration());
+    }
+
+    @Test
+    void textKeysMatchPreviousRuleTest() {
+        String[][] pairs = {
+                {"Touch -3 Beacons", "touch 5 beacons"},
+                {"Touch -3 Beacons", "touch -5 beacons"},
+                {"Touch -3 Beacons", "touch - beacons"},
+                {"Light 3 Campfires", "LIGHT 12 CAMPFIRES"},
+                {"Light 3 Campfires", "Light 3 Campfire"},
+                {"a--5", "A-"},
+                {"a--5", "a"},
+                {"-1-2-3", ""},
+                {"Ember Twin 2b", "ember twin b"},
+                {"Stra\u00dfe 1", "STRASSE"},
+                {"Giant's Deep", "giant's deep 0"},
+        };
+        for (String[] pair : pairs) {
+            boolean expected = pair[0].replaceAll("-?\\d", "").equalsIgnoreCase(pair[1].replaceAll("-?\\d", ""));
+            BingoTile tile = new BingoTile(pair[0], "", 1);
+            String message = pair[0] + " / " + pair[1];
+            assertEquals(expected, tile.isTextEqual(pair[1]), message);
+            assertEquals(expected, tile.getTextKey().equals(BingoTile.normalizeText(pair[1])), message);
+            if (expected) assertEquals(tile.getTextKeyHash(), BingoTile.hashText(pair[1]), message);
+
+            GenerationContext context = new GenerationContext(Collections.emptyList(), 1);
+            context.add(tile);
+            assertEquals(expected, context.containsText(pair[1]), message);
+            assertEquals(expected, context.containsTextKey(BingoTile.normalizeText(pair[1])), message);
+        }
+    }
+
+    @Test
+    void textKeyTableDoesNotGrowWithReplacedTilesTest() {
+        GenerationContext context = new GenerationContext(Collections.emptyList(), 25);
+        for (int i = 0; i < 25; i++) {
+            context.add(new BingoTile("Tile " + (char) ('a' + i), "", 1));
+        }
+        // replaces single tiles with new texts, like the annealing does
+        int capacity = 0;
+        for (int i = 0; i < 20000; i++) {
+            if (i == 1000) capacity = context.getTextKeyCapacity();
+            BingoTile removed = context.remove(i % 25);
+            assertFalse(context.containsText(removed.getText()));
+            BingoTile added = new BingoTile("Replacement " + letters(i), "", 1);
+            context.add(added);
+            assertTrue(context.containsText(added.getText()));
+        }
+        assertEquals(capacity, context.getTextKeyCapacity());
+        assertTrue(capacity <= 128, String.valueOf(capacity));
+        for (BingoTile tile : context.getTiles()) {
+            assertTrue(context.containsTextKey(tile.getTextKey()));
+        }
+    }
+
+    private static String letters(int number) {
+        // texts without digits, as digits are ignored when comparing texts
+        StringBuilder letters = new StringBuilder();
+        do {
+            letters.append((char) ('a' + number % 26));
+            number /= 26;
+        } while (number > 0);
+        return letters.toString();
+    }
+
+    @Test
+    void derivedCategoriesFollowSnippetCyclesTest() {
+        String yaml = String.join("\n",
+                "tile generators:",
+                "  - text: Visit [PLACE]",
+                "  - text: Meet [PERSON:PLACE]",
+                "snippets:",
+                "  PLACE:",
+                "    - text: the home of [PERSON]",
+                "      categories: [ place ]",
+                "  PERSON:",
+                "    - text: someone from [PLACE]",
+                "      categories: [ person ]",
+                "    - text: a [ROLE:tag(old)]",
+                "  ROLE:",
+                "    - text: ranger",
+                "      categories: [ role ]",
+                "difficulty:",
+                "  - name: Normal",
+                "    score: 1");
+        BingoConfiguration configuration = new BingoConfiguration(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)));
+        assertEquals("[person, place, role]", categoryNames(configuration.getTileGenerators().get(0).getDerivedCategories()));
+        assertEquals("[person, place, role]", categoryNames(configuration.getTileGenerators().get(1).getDerivedCategories()));
+        assertEquals("[person, place, role]", categoryNames(configuration.getTextSnippets().get("PLACE").get(0).getDerivedCategories()));
+        assertEquals("[role]", categoryNames(configuration.getTextSnippets().get("PERSON").get(1).getDerivedCategories()));
+        assertTrue(configuration.getTextSnippets().get("ROLE").get(0).getDerivedCategories().isEmpty());
+    }
+
+    @Test
+    void derivedCategoriesCoverNestedAndMultiTypePlaceholdersTest() {
+        String yaml = String.join("\n",
+                "categories:",
+                "  - categories: [ role ]",
+                "    min:",
+                "      absolute: 1",
+                "tile generators:",
+                "  - text: Visit [PLACE:PERSON]",
+                "  - text: Meet [GUIDE]",
+                "  - text: Rest",
+                "snippets:",
+                "  PLACE:",
+                "    - text: the village",
+                "      categories: [ place ]",
+                "  PERSON:",
+                "    - text: a hiker",
+                "      categories: [ person ]",
+                "  GUIDE:",
+                "    - text: a [ROLE:tag(old)]",
+                "  ROLE:",
+                "    - text: ranger",
+                "      categories: [ role ]",
+                "      tags: [ old ]",
+                "difficulty:",
+                "  - name: Normal",
+                "    score: 1");
+        BingoConfiguration configuration = new BingoConfiguration(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)));
+        // placeholders with several types or a condition and snippets without categories of their own used to derive nothing
+        assertEquals("[person, place]", categoryNames(configuration.getTileGenerators().get(0).getDerivedCategories()));
+        assertEquals("[role]", categoryNames(configuration.getTileGenerators().get(1).getDerivedCategories()));
+        assertTrue(configuration.getTileGenerators().get(2).getDerivedCategories().isEmpty());
+        assertEquals("[role]", categoryNames(configuration.getTextSnippets().get("GUIDE").get(0).getDerivedCategories()));
+
+        // the minimum of the role category can only be met by the generator that derives it
+        BingoGenerator generator = new BingoGenerator(configuration);
+        generator.setWidth(1);
+        generator.setHeight(1);
+        generator.setDifficulty(-1);
+        for (int seed = 0; seed < 20; seed++) {
+            assertEquals("Meet a ranger", generator.generateBingoBoard(RandomSource.create(seed)).get(0, 0).getText());
+        }
+    }
+
+    @Test
+    void generationStatisticsTest() throws FileNotFoundException {
+        BingoConfiguration configuration = new BingoConfiguration(new File("src/test/resources/bingo/generate/outer_wilds.yaml"));
+        BingoGenerator generator = new BingoGenerator(configuration);
+        generator.setWidth(5);
+        generator.setHeight(5);
+        generator.setDifficultyLevel("Normal");
+        GenerationStatistics statistics = new GenerationStatistics();
+        generator.setGenerationListener(statistics);
+        BingoBoard board = generator.generateBingoBoard(42, 0);
+
+        for (GenerationPhase phase : GenerationPhase.values()) {
+            assertEquals(1, statistics.getPhaseCount(phase), phase.name());
+        }
+        assertTrue(statistics.getTileDraws() >= 25);
+        assertTrue(statistics.getImprovements() > 0);
+        assertEquals(0, statistics.getFallbacks(GeneratorFallback.DIFFICULTY));
+
+        generator.setGenerationListener(null);
+        assertEquals(board.toJson().toString(), generator.generateBingoBoard(42, 0).toJson().toString());
+        assertEquals(1, statistics.getPhaseCount(GenerationPhase.FILL));
+    }
+
+    @Test
+    void generationAllocationTest() throws FileNotFoundException {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+
+        BingoConfiguration configuration = new BingoConfiguration(new File("src/test/resources/bingo/generate/outer_wilds.yaml"));
+        BingoGenerator generator = new BingoGenerator(configuration);
+        generator.setWidth(5);
+        generator.setHeight(5);
+        generator.setDifficultyLevel("Normal");
+        generator.setOptimizationMode(OptimizationMode.ANNEALING);
+        for (int i = 0; i < 5; i++) {
+            generator.generateBingoBoard(i, 0);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        int boards = 20;
+        for (int i = 0; i < boards; i++) {
+            generator.generateBingoBoard(i, 1);
+        }
+        long bytesPerBoard = (threadBean.getThreadAllocatedBytes(threadId) - before) / boards;
+        // the tile generation used to allocate more than 3 MB per board, it is now closer to 0.5 MB
+        assertTrue(bytesPerBoard < 1_500_000, "Allocated [" + bytesPerBoard + "] bytes per board");
+    }
+
+    private static String categoryNames(Collection<Category> categories) {
+        return categories.stream().map(Category::getName).sorted().collect(Collectors.toList()).toString();
+    }
 }
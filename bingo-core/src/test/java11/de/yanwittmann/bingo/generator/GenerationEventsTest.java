@@ -0,0 +1,72 @@
+package de.yanwittmann.bingo.generator;
+
+import de.yanwittmann.bingo.BingoBoard;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class GenerationEventsTest {
+
+    @Test
+    void flightRecorderEventsTest(@TempDir Path tempDir) throws IOException {
+        assumeTrue(GenerationEvents.get().isAvailable());
+
+        BingoConfiguration configuration = new BingoConfiguration(new File("src/test/resources/bingo/generate/outer_wilds.yaml"));
+        BingoGenerator generator = new BingoGenerator(configuration);
+        generator.setWidth(5);
+        generator.setHeight(5);
+        generator.setDifficultyLevel("Normal");
+
+        Path recordingFile = tempDir.resolve("generation.jfr");
+        BingoBoard board;
+        try (Recording recording = new Recording()) {
+            recording.enable("de.yanwittmann.bingo.BoardGeneration");
+            recording.enable("de.yanwittmann.bingo.TileReplacement");
+            recording.enable("de.yanwittmann.bingo.TileGeneration");
+            recording.enable("de.yanwittmann.bingo.Populate");
+            recording.start();
+            board = generator.generateBingoBoard(42, 0);
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        String title = configuration.getBoardMetadata().getTitle();
+
+        List<RecordedEvent> boards = eventsNamed(events, "de.yanwittmann.bingo.BoardGeneration");
+        assertEquals(1, boards.size());
+        RecordedEvent boardEvent = boards.get(0);
+        assertEquals(5, boardEvent.getInt("width"));
+        assertEquals(5, boardEvent.getInt("height"));
+        assertEquals(title, boardEvent.getString("configuration"));
+        assertTrue(boardEvent.getInt("attempts") > 0);
+        assertTrue(boardEvent.getInt("attempts") <= boardEvent.getInt("maxAttempts"));
+        assertEquals(board.getDifficulty(), boardEvent.getDouble("averageDifficulty"));
+        assertEquals(board.getLayoutScore(), boardEvent.getInt("layoutScore"));
+
+        List<RecordedEvent> populates = eventsNamed(events, "de.yanwittmann.bingo.Populate");
+        assertEquals(1, populates.size());
+        assertEquals(25, populates.get(0).getInt("tiles"));
+        assertEquals(board.getLayoutScore(), populates.get(0).getInt("layoutScore"));
+
+        // the original algorithm records every round of replacing tiles
+        assertEquals(boardEvent.getInt("attempts"), eventsNamed(events, "de.yanwittmann.bingo.TileReplacement").size());
+        assertTrue(eventsNamed(events, "de.yanwittmann.bingo.TileGeneration").size() >= 25);
+    }
+
+    private static List<RecordedEvent> eventsNamed(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+}
@@ -2,8 +2,10 @@ package de.yanwittmann.bingo.visualizer;
 
 import de.yanwittmann.bingo.BingoBoard;
 import de.yanwittmann.bingo.generator.BingoConfiguration;
+import de.yanwittmann.bingo.generator.ConfigurationCache;
 import de.yanwittmann.bingo.generator.BingoGenerator;
 import de.yanwittmann.bingo.generator.Category;
+import de.yanwittmann.bingo.interfaces.RandomSource;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -13,8 +15,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Random;
+import java.io.IOException;
 import java.util.StringJoiner;
 import java.util.stream.Collectors;
 
@@ -51,7 +52,7 @@ public class BingoFrame extends JFrame {
         regenerateButton.addActionListener(e -> {
             try {
                 generateAndShow();
-            } catch (FileNotFoundException e1) {
+            } catch (IOException e1) {
                 e1.printStackTrace();
             }
         });
@@ -81,7 +82,7 @@ public class BingoFrame extends JFrame {
             public void actionPerformed(ActionEvent e) {
                 try {
                     generateAndShow();
-                } catch (FileNotFoundException e1) {
+                } catch (IOException e1) {
                     e1.printStackTrace();
                 }
             }
@@ -112,18 +113,18 @@ public class BingoFrame extends JFrame {
         return false;
     }
 
-    public void generateAndShow() throws FileNotFoundException {
-        BingoConfiguration configuration = new BingoConfiguration(new File("bingo-core/src/test/resources/bingo/generate/outer_wilds.yaml"));
+    public void generateAndShow() throws IOException {
+        BingoConfiguration configuration = ConfigurationCache.load(new File("bingo-core/src/test/resources/bingo/generate/outer_wilds.yaml"), CACHE_DIRECTORY);
         BingoGenerator generator = new BingoGenerator(configuration);
         generator.setWidth(10);
         generator.setHeight(7);
         generator.setMaxGenerationAttempts(1);
         generator.setDifficulty(2);
-        Random random;
+        RandomSource random;
         if (seedField.getText().isEmpty() || !seedField.getText().matches("[0-9]+")) {
-            random = new Random();
+            random = RandomSource.create();
         } else {
-            random = new Random(Long.parseLong(seedField.getText()));
+            random = RandomSource.create(Long.parseLong(seedField.getText()));
         }
         BingoBoard bingoBoard = generator.generateBingoBoard(random);
         showBoard(bingoBoard);
@@ -161,7 +162,9 @@ public class BingoFrame extends JFrame {
         bingoGridPanel.revalidate();
     }
 
-    public static void main(String[] args) throws FileNotFoundException {
+    public static void main(String[] args) throws IOException {
         new BingoFrame().generateAndShow();
     }
+
+    private final static File CACHE_DIRECTORY = new File(System.getProperty("java.io.tmpdir"), "bingo-configuration-cache");
 }
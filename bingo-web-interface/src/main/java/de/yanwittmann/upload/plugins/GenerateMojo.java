@@ -2,6 +2,8 @@ package de.yanwittmann.upload.plugins;
 
 import de.yanwittmann.bingo.generator.BingoConfiguration;
 import de.yanwittmann.bingo.generator.BingoGenerator;
+import de.yanwittmann.bingo.generator.ConfigurationCache;
+import de.yanwittmann.bingo.interfaces.RandomSource;
 import org.apache.commons.io.FileUtils;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -10,10 +12,8 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.json.JSONObject;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.Random;
 
 @Mojo(name = "generate-board", requiresProject = false)
 public class GenerateMojo extends AbstractMojo {
@@ -42,6 +42,12 @@ public class GenerateMojo extends AbstractMojo {
     @Parameter(required = true)
     private File outputFile;
 
+    /**
+     * Directory to cache the parsed configuration in, the configuration file is parsed on every execution if not set.
+     */
+    @Parameter
+    private File cacheDirectory;
+
     public void execute() throws MojoExecutionException {
         if (!active) {
             getLog().info("Board generation is disabled by configuration.");
@@ -55,9 +61,9 @@ public class GenerateMojo extends AbstractMojo {
 
         BingoConfiguration bingoConfiguration;
         try {
-            bingoConfiguration = new BingoConfiguration(configurationFile);
-        } catch (FileNotFoundException e) {
-            throw new MojoExecutionException("Configuration file not found: " + configurationFile, e);
+            bingoConfiguration = ConfigurationCache.load(configurationFile, cacheDirectory);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Configuration file could not be read: " + configurationFile, e);
         }
 
         BingoGenerator bingoGenerator = new BingoGenerator(bingoConfiguration);
@@ -89,11 +95,11 @@ public class GenerateMojo extends AbstractMojo {
         getLog().info("Effective difficulty [" + bingoGenerator.getDifficulty() + "] of type [" + difficultyType + "]");
         bingoGenerator.setWidth(width);
         bingoGenerator.setHeight(height);
-        Random random;
+        RandomSource random;
         if (seed != -1) {
-            random = new Random(seed);
+            random = RandomSource.create(seed);
         } else {
-            random = new Random();
+            random = RandomSource.create();
         }
         JSONObject bingoJson = bingoGenerator.generateBingoBoard(random).toJson();
 